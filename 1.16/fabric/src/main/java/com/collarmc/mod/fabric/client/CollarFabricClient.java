@@ -2,6 +2,7 @@ package com.collarmc.mod.fabric.client;
 
 import com.collarmc.client.plugin.Plugins;
 import com.collarmc.mod.common.events.CollarModInitializedEvent;
+import com.collarmc.mod.common.events.ProfilingEventBus;
 import com.collarmc.mod.glue.render.TracerRenderer;
 import com.collarmc.mod.glue.render.WaypointRenderer;
 import com.collarmc.plastic.GluePlastic;
@@ -22,9 +23,10 @@ import java.io.IOException;
 @Environment(EnvType.CLIENT)
 public class CollarFabricClient implements ClientModInitializer {
 
-    private static final EventBus EVENT_BUS = new EventBus(Runnable::run);
+    private static final EventBus EVENT_BUS = ProfilingEventBus.create(Runnable::run);
     private static final Plugins PLUGINS = new Plugins();
-    private static final Plastic PLASTIC = new GluePlastic(new CollarTextureProvider(), EVENT_BUS);
+    private static final CollarTextureProvider TEXTURE_PROVIDER = new CollarTextureProvider();
+    private static final Plastic PLASTIC = new GluePlastic(TEXTURE_PROVIDER, EVENT_BUS);
     private static final CollarService COLLAR_SERVICE = new CollarService(PLASTIC, EVENT_BUS, PLUGINS);
     private static final WaypointRenderer WAYPOINT_RENDERER = new WaypointRenderer(PLASTIC, COLLAR_SERVICE);
     private static final TracerRenderer TRACER_RENDERER = new TracerRenderer(PLASTIC, COLLAR_SERVICE);
@@ -34,6 +36,8 @@ public class CollarFabricClient implements ClientModInitializer {
     public void onInitializeClient() {
         Commands<FabricClientCommandSource> commands = new Commands<>(COLLAR_SERVICE, GROUP_CHAT_SERVICE, PLASTIC, true);
         commands.register(ClientCommandManager.DISPATCHER);
+        TEXTURE_PROVIDER.useWorkers(COLLAR_SERVICE.workers.background);
+        EVENT_BUS.subscribe(TEXTURE_PROVIDER);
         EVENT_BUS.subscribe(WAYPOINT_RENDERER);
         EVENT_BUS.subscribe(TRACER_RENDERER);
         EVENT_BUS.dispatch(new CollarModInitializedEvent());
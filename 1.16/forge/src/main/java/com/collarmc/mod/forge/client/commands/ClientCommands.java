@@ -1,5 +1,6 @@
 package com.collarmc.mod.forge.client.commands;
 
+import com.collarmc.mod.common.commands.CommandCache;
 import com.google.common.collect.Iterables;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.ParseResults;
@@ -33,6 +34,14 @@ public class ClientCommands {
     public static final CommandDispatcher<ICommandSource> DISPATCHER = new CommandDispatcher<>();
     private static final String API_COMMAND_NAME = "collar-forgehax-command";
     private static final String SHORT_API_COMMAND_NAME = "cfc";
+    private static CommandCache<ICommandSource> commandCache;
+
+    /**
+     * @param cache of {@link #DISPATCHER} to parse commands and look up usage with
+     */
+    public static void useCommandCache(CommandCache<ICommandSource> cache) {
+        commandCache = cache;
+    }
 
     /**
      *
@@ -53,7 +62,7 @@ public class ClientCommands {
         client.getProfiler().push(someString);
 
         try {
-            DISPATCHER.execute(someString.substring(1), commandSource);
+            DISPATCHER.execute(parse(someString.substring(1), commandSource));
             return true;
         } catch (CommandSyntaxException e){
             boolean ignored = isIgnoredException(e.getType());
@@ -88,7 +97,7 @@ public class ClientCommands {
         return executeHelp(DISPATCHER.getRoot(), context);
     }
     private static int executeArgumentHelp(CommandContext<ICommandSource> context) throws CommandSyntaxException {
-        ParseResults<ICommandSource> parseResults = DISPATCHER.parse(StringArgumentType.getString(context, "command"), context.getSource());
+        ParseResults<ICommandSource> parseResults = parse(StringArgumentType.getString(context, "command"), context.getSource());
         List<ParsedCommandNode<ICommandSource>> nodes = parseResults.getContext().getNodes();
 
         if (nodes.isEmpty()) {
@@ -98,7 +107,7 @@ public class ClientCommands {
         return executeHelp(Iterables.getLast(nodes).getNode(), context);
     }
     private static int executeHelp(CommandNode<ICommandSource> startNode, CommandContext<ICommandSource> context) {
-        Map<CommandNode<ICommandSource>, String> commands = DISPATCHER.getSmartUsage(startNode, context.getSource());
+        Map<CommandNode<ICommandSource>, String> commands = commandCache == null ? DISPATCHER.getSmartUsage(startNode, context.getSource()) : commandCache.smartUsage(startNode);
 
         for (String command : commands.values()) {
             context.getSource().sendFeedback(new LiteralText("/" + command));
@@ -116,6 +125,9 @@ public class ClientCommands {
 
             CommandNode<ICommandSource> mainNode = DISPATCHER.register(literal(API_COMMAND_NAME).then(help));
             DISPATCHER.register(literal(SHORT_API_COMMAND_NAME).redirect(mainNode));
+            if (commandCache != null) {
+                commandCache.commandsChanged();
+            }
         }
 
         // noinspection CodeBlock2Expr
@@ -124,6 +136,10 @@ public class ClientCommands {
         });
     }
 
+    private static ParseResults<ICommandSource> parse(String command, ICommandSource source) {
+        return commandCache == null ? DISPATCHER.parse(command, source) : commandCache.parse(command, source);
+    }
+
     private static LiteralArgumentBuilder<ICommandSource> literal(String s){
         return LiteralArgumentBuilder.literal(s);
     }
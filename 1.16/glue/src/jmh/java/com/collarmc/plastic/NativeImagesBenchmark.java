@@ -0,0 +1,90 @@
+package com.collarmc.plastic;
+
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old per pixel cape conversion with {@link NativeImages}, for vanilla sized and HD capes.
+ * The row copies write to memory from {@link MemoryUtil#nmemAlloc(long)}, so they run without the mixins that give
+ * access to the pointer of a {@link NativeImage}.
+ * Run with {@code ./gradlew :1.16:glue:jmh}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeImagesBenchmark {
+
+    @Param({"64x32", "2048x1024"})
+    public String size;
+
+    /**
+     * PNGs with alpha are decoded by ImageIO as 4 byte ABGR, images drawn in code are usually int ARGB
+     */
+    @Param({"TYPE_4BYTE_ABGR", "TYPE_INT_ARGB"})
+    public String type;
+
+    private BufferedImage image;
+    private long reused;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        image = new BufferedImage(width, height, "TYPE_INT_ARGB".equals(type) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_4BYTE_ABGR);
+        Random random = new Random(0);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextInt();
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        reused = MemoryUtil.nmemAlloc(width * height * 4L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MemoryUtil.nmemFree(reused);
+    }
+
+    /**
+     * The conversion capes used before, column-major through getRGB and setPixelColor
+     */
+    @Benchmark
+    public void perPixel() {
+        NativeImage nativeImage = new NativeImage(image.getWidth(), image.getHeight(), true);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                nativeImage.setPixelColor(x, y, image.getRGB(x, y));
+            }
+        }
+        nativeImage.close();
+    }
+
+    /**
+     * Conversion into a new image, as when a cape is first uploaded
+     */
+    @Benchmark
+    public void bulk() {
+        long address = MemoryUtil.nmemAlloc(image.getWidth() * image.getHeight() * 4L);
+        NativeImages.copy(image, address);
+        MemoryUtil.nmemFree(address);
+    }
+
+    /**
+     * Conversion into an existing image, as when a cape of the same size is uploaded again
+     */
+    @Benchmark
+    public void bulkReused() {
+        NativeImages.copy(image, reused);
+    }
+}
@@ -1,26 +1,64 @@
 package com.collarmc.mod.glue.render;
 
-import com.collarmc.mod.glue.mixin.MinecraftClientFieldMixin;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.client.render.RenderLayer;
 import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.block.entity.BeaconBlockEntityRenderer;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.DyeColor;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Matrix4f;
 import net.minecraft.util.math.Vec3d;
-import com.collarmc.api.waypoints.Waypoint;
 import com.collarmc.client.Collar;
 import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.waypoints.IndexedWaypoint;
 import com.collarmc.plastic.Plastic;
-import com.collarmc.plastic.player.Player;
 import com.collarmc.pounce.Preference;
 import com.collarmc.pounce.Subscribe;
 
+import java.util.*;
+
 import static net.minecraft.client.render.block.entity.BeaconBlockEntityRenderer.BEAM_TEXTURE;
 
+/**
+ * Renders a beacon beam for every waypoint in the current dimension.
+ * A frame only looks up the waypoints of the current dimension within {@link #MAX_DISTANCE} of the camera from
+ * {@link CollarService#waypoints}, culls them against the frustum and draws the ones left in a single batch: the beams
+ * are written into a buffer of their own for each of the two beam layers, and each layer is drawn once. The render
+ * state of each waypoint is kept until the waypoints change.
+ */
 public class WaypointRenderer {
 
+    /**
+     * Height of the beam above the waypoint
+     */
+    private static final int BEAM_HEIGHT = 1024;
+
+    /**
+     * Beams further away than this, horizontally, are not drawn
+     */
+    private static final double MAX_DISTANCE = 512;
+
+    /**
+     * Maximum number of beams drawn in a frame, the nearest ones win
+     */
+    private static final int MAX_BEAMS = 64;
+
+    private static final float[] BEAM_COLOR = DyeColor.PINK.getColorComponents();
+    private static final Comparator<Beam> NEAREST_FIRST = Comparator.comparingDouble(beam -> beam.distanceSquared);
+
     private final Plastic plastic;
     private final CollarService collarService;
+    private final List<IndexedWaypoint> nearby = new ArrayList<>();
+    private final List<Beam> visible = new ArrayList<>();
+    private final Map<UUID, Beam> beams = new HashMap<>();
+    private long generation = -1;
+    private VertexConsumerProvider.Immediate consumers;
+    private Frustum frustum;
+    private Matrix4f frustumModel;
+    private Matrix4f frustumProjection;
 
     public WaypointRenderer(Plastic plastic, CollarService collarService) {
         this.plastic = plastic;
@@ -47,32 +85,109 @@ public class WaypointRenderer {
             if (collar.getState() != Collar.State.CONNECTED && !collar.configuration.debugConfiguration.waypoints) {
                 return;
             }
-            collar.location().privateWaypoints().stream()
-                    .filter(this::currentDimension)
-                    .forEach(waypoint -> renderWaypointBeacon(event.matrixStack, waypoint, plastic.world.currentPlayer()));
-            collar.groups().groups().forEach(group -> {
-                collar.location().groupWaypoints(group).stream()
-                        .filter(this::currentDimension)
-                        .forEach(waypoint -> renderWaypointBeacon(event.matrixStack, waypoint, plastic.world.currentPlayer()));
-            });
+            long current = collarService.waypoints.generation();
+            if (current != generation) {
+                generation = current;
+                beams.clear();
+            }
+            Vec3d camera = event.camera.getPos();
+            collarService.waypoints.box(collarService.worldSnapshot().dimension,
+                    camera.x - MAX_DISTANCE, camera.z - MAX_DISTANCE, camera.x + MAX_DISTANCE, camera.z + MAX_DISTANCE, nearby);
+            if (nearby.isEmpty()) {
+                return;
+            }
+            Frustum frustum = frustum(event.matrixStack.peek().getModel(), event.projectionMatrix);
+            frustum.setPosition(camera.x, camera.y, camera.z);
+            cull(camera, frustum);
+            nearby.clear();
+            if (visible.isEmpty()) {
+                return;
+            }
+            if (visible.size() > MAX_BEAMS) {
+                visible.sort(NEAREST_FIRST);
+            }
+            renderBeams(event.matrixStack, camera, event.tickDelta);
+            visible.clear();
         });
     }
 
-    boolean currentDimension(Waypoint waypoint) {
-        return plastic.world.currentPlayer().location().dimension.equals(waypoint.location.dimension);
+    private void cull(Vec3d camera, Frustum frustum) {
+        double maxDistanceSquared = MAX_DISTANCE * MAX_DISTANCE;
+        for (IndexedWaypoint waypoint : nearby) {
+            Beam beam = beams.computeIfAbsent(waypoint.waypoint.id, id -> new Beam(waypoint));
+            double dx = beam.x - camera.x;
+            double dz = beam.z - camera.z;
+            beam.distanceSquared = dx * dx + dz * dz;
+            if (beam.distanceSquared <= maxDistanceSquared && frustum.isVisible(beam.bounds)) {
+                visible.add(beam);
+            }
+        }
+    }
+
+    /**
+     * @return frustum of the matrices, reused while the camera has not turned or the projection changed
+     */
+    private Frustum frustum(Matrix4f model, Matrix4f projection) {
+        if (frustum == null || !model.equals(frustumModel) || !projection.equals(frustumProjection)) {
+            frustumModel = model.copy();
+            frustumProjection = projection.copy();
+            frustum = new Frustum(frustumModel, frustumProjection);
+        }
+        return frustum;
+    }
+
+    private void renderBeams(MatrixStack matrix, Vec3d camera, float tickDelta) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        VertexConsumerProvider.Immediate consumers = consumers();
+        long time = client.world.getTime();
+        int count = Math.min(visible.size(), MAX_BEAMS);
+        for (int i = 0; i < count; i++) {
+            Beam beam = visible.get(i);
+            matrix.push();
+            matrix.translate(beam.x - camera.x, beam.y - camera.y, beam.z - camera.z);
+            renderBeacon(matrix, consumers, tickDelta, time, 0, BEAM_HEIGHT, BEAM_COLOR);
+            matrix.pop();
+        }
+        consumers.draw(RenderLayer.getBeaconBeam(BEAM_TEXTURE, false));
+        consumers.draw(RenderLayer.getBeaconBeam(BEAM_TEXTURE, true));
     }
 
-    private void renderWaypointBeacon(MatrixStack matrix, Waypoint waypoint, Player player) {
-        MinecraftClientFieldMixin minecraftClientMixin = (MinecraftClientFieldMixin)MinecraftClient.getInstance();
-        matrix.push();
-        long time = MinecraftClient.getInstance().world.getTime();
-        Vec3d pos = MinecraftClient.getInstance().gameRenderer.getCamera().getPos();
-        matrix.translate(-pos.getX() + waypoint.location.x, -pos.getY() + waypoint.location.y, -pos.getZ() + waypoint.location.z);
-        renderBeacon(matrix, minecraftClientMixin.bufferBuilders().getEntityVertexConsumers(), player.yaw(), time, 0, 1024, DyeColor.PINK.getColorComponents());
-        matrix.pop();
+    /**
+     * The shared entity consumers have no buffer of their own for beam layers, so they flush on every switch between
+     * the opaque and translucent layer of a beam. These have one per layer, so all beams are collected before drawing.
+     * @return consumers for the beams, created on first use
+     */
+    private VertexConsumerProvider.Immediate consumers() {
+        if (consumers == null) {
+            Map<RenderLayer, BufferBuilder> layers = new LinkedHashMap<>();
+            for (boolean translucent : new boolean[] {false, true}) {
+                RenderLayer layer = RenderLayer.getBeaconBeam(BEAM_TEXTURE, translucent);
+                layers.put(layer, new BufferBuilder(layer.getExpectedBufferSize()));
+            }
+            consumers = VertexConsumerProvider.immediate(layers, new BufferBuilder(256));
+        }
+        return consumers;
     }
 
     private static void renderBeacon(MatrixStack matrixStack, VertexConsumerProvider vertexConsumerProvider, float f, long l, int i, int j, float[] color) {
         BeaconBlockEntityRenderer.renderBeam(matrixStack, vertexConsumerProvider, BEAM_TEXTURE, f, 1.0F, l, i, j, color, 0.2F, 0.25F);
     }
+
+    /**
+     * Render state of a waypoint, computed the first time it is near the camera after the waypoints change
+     */
+    private static final class Beam {
+        public final double x;
+        public final double y;
+        public final double z;
+        public final Box bounds;
+        public double distanceSquared;
+
+        public Beam(IndexedWaypoint waypoint) {
+            this.x = waypoint.x;
+            this.y = waypoint.y;
+            this.z = waypoint.z;
+            this.bounds = new Box(x, y, z, x + 1, y + BEAM_HEIGHT, z + 1);
+        }
+    }
 }
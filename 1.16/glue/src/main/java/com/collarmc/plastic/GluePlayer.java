@@ -6,24 +6,27 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.AbstractClientPlayerEntity;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.client.network.PlayerListEntry;
-import net.minecraft.client.texture.NativeImage;
-import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.resource.Resource;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import com.collarmc.api.location.Dimension;
 import com.collarmc.api.location.Location;
 import com.collarmc.plastic.player.Player;
+import com.collarmc.plastic.ui.AvatarCache;
 import com.collarmc.plastic.ui.TextureProvider;
+import com.collarmc.plastic.ui.TextureResolver;
 import com.collarmc.plastic.ui.TextureType;
+import com.collarmc.plastic.world.MutableLocation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import static net.minecraft.world.dimension.DimensionType.*;
@@ -32,13 +35,18 @@ import static net.minecraft.world.dimension.DimensionType.*;
 public class GluePlayer implements Player {
 
     private static final Logger LOGGER = LogManager.getLogger(GluePlayer.class);
+    private static final AvatarCache<Identifier> AVATARS = new AvatarCache<>();
 
     private final AbstractClientPlayerEntity playerEntity;
     private final TextureProvider textureProvider;
+    private final String capeTextureName;
+    private volatile Location location;
+    private volatile WorldDimension worldDimension;
 
     public GluePlayer(AbstractClientPlayerEntity playerEntity, TextureProvider textureProvider) {
         this.playerEntity = playerEntity;
         this.textureProvider = textureProvider;
+        this.capeTextureName = String.format("plastic-capes/%s.png", playerEntity.getGameProfile().getId());
     }
 
     @Override
@@ -58,44 +66,86 @@ public class GluePlayer implements Player {
 
     @Override
     public void avatar(Consumer<BufferedImage> consumer) {
-        textureProvider.getTexture(this, TextureType.AVATAR, defaultAvatar()).thenAccept(bufferedImageOptional -> {
-            bufferedImageOptional.ifPresent(consumer);
-            if (!bufferedImageOptional.isPresent()) {
-                LOGGER.error("Avatar for " + this + " is missing");
-            }
-        });
+        // The skin is only decoded when there is no Collar avatar to use
+        textureProvider.getTexture(this, TextureType.AVATAR, null)
+                .thenCompose(avatar -> avatar.isPresent() ? CompletableFuture.completedFuture(avatar.get()) : defaultAvatar())
+                .whenComplete((avatar, e) -> {
+                    if (e != null) {
+                        LOGGER.error("Avatar for " + this + " is missing", e);
+                    } else {
+                        consumer.accept(avatar);
+                    }
+                });
+    }
+
+    /**
+     * Forgets the default avatars cut out of skins, as the skins may have changed when resources were reloaded
+     */
+    public static void invalidateAvatars() {
+        AVATARS.invalidateAll();
     }
 
     @Override
     public void onRender() {
-        if (playerEntity.getCapeTexture() == null) {
-            MinecraftClient minecraftClient = MinecraftClient.getInstance();
-            if (minecraftClient == null) {
-                throw new IllegalStateException("minecraftClient");
-            }
-            ClientPlayNetworkHandler networkHandler = minecraftClient.getNetworkHandler();
-            if (networkHandler == null) {
-                throw new IllegalStateException("networkHandler");
+        if (playerEntity.getCapeTexture() != null) {
+            return;
+        }
+        UUID id = playerEntity.getGameProfile().getId();
+        TextureResolver capes = Plastic.getPlastic().world.capes;
+        TextureResolver.State state = capes.begin(id);
+        if (state != TextureResolver.State.UNKNOWN && state != TextureResolver.State.RESOLVED) {
+            return;
+        }
+        MinecraftClient minecraftClient = MinecraftClient.getInstance();
+        if (minecraftClient == null) {
+            throw new IllegalStateException("minecraftClient");
+        }
+        ClientPlayNetworkHandler networkHandler = minecraftClient.getNetworkHandler();
+        if (networkHandler == null) {
+            throw new IllegalStateException("networkHandler");
+        }
+        PlayerListEntry entry = networkHandler.getPlayerListEntry(id);
+        PlayerListEntryMixin entryMixin = (PlayerListEntryMixin)entry;
+        if (entryMixin == null) {
+            //throw new IllegalStateException("entryMixin");
+            //it shouldn't crash, there are dummy entities on multiple servers. like Hypixel
+            if (state == TextureResolver.State.UNKNOWN) {
+                capes.absent(id);
             }
-            PlayerListEntry entry = networkHandler.getPlayerListEntry(playerEntity.getGameProfile().getId());
-            PlayerListEntryMixin entryMixin = (PlayerListEntryMixin)entry;
-            if (entryMixin == null) {
-                //throw new IllegalStateException("entryMixin");
-                //it shouldn't crash, there are dummy entities on multiple servers. like Hypixel
-                return;
+            return;
+        }
+        Map<MinecraftProfileTexture.Type, Identifier> textures = entryMixin.textures();
+        if (state == TextureResolver.State.RESOLVED) {
+            // The player list entry was replaced, so put back the cape that was already uploaded
+            Identifier identifier = PlayerTextures.INSTANCE.find(capeTextureName);
+            if (identifier == null) {
+                capes.invalidate(id);
+            } else {
+                textures.put(MinecraftProfileTexture.Type.CAPE, identifier);
+                textures.put(MinecraftProfileTexture.Type.ELYTRA, identifier);
             }
-            Map<MinecraftProfileTexture.Type, Identifier> textures = entryMixin.textures();
-            String textureName = String.format("plastic-capes/%s.png", playerEntity.getGameProfile().getId());
-            textureProvider.getTexture(this, TextureType.CAPE, null).thenAccept(textureOptional -> {
-                textureOptional.ifPresent(texture -> {
-                    NativeImage image = nativeImageFrom(texture);
-                    NativeImageBackedTexture nativeImageTexture = new NativeImageBackedTexture(image);
-                    Identifier identifier = minecraftClient.getTextureManager().registerDynamicTexture(textureName, nativeImageTexture);
-                    textures.put(MinecraftProfileTexture.Type.CAPE, identifier);
-                    textures.put(MinecraftProfileTexture.Type.ELYTRA, identifier);
-                });
-            });
+            return;
         }
+        textureProvider.getTexture(this, TextureType.CAPE, null).whenComplete((textureOptional, e) -> {
+            if (e != null) {
+                LOGGER.warn("Could not load cape for " + this, e);
+                capes.failed(id);
+            } else if (!textureOptional.isPresent()) {
+                capes.absent(id);
+            } else {
+                minecraftClient.execute(() -> {
+                    try {
+                        Identifier identifier = PlayerTextures.INSTANCE.upload(capeTextureName, textureOptional.get());
+                        textures.put(MinecraftProfileTexture.Type.CAPE, identifier);
+                        textures.put(MinecraftProfileTexture.Type.ELYTRA, identifier);
+                        capes.resolved(id);
+                    } catch (RuntimeException uploadFailure) {
+                        LOGGER.warn("Could not upload cape for " + this, uploadFailure);
+                        capes.failed(id);
+                    }
+                });
+            }
+        });
     }
 
     @Override
@@ -105,48 +155,79 @@ public class GluePlayer implements Player {
 
     @Override
     public Location location() {
-        Dimension dimension;
-        Identifier skyProperties = playerEntity.getEntityWorld().getDimension().getSkyProperties();
+        BlockPos blockPos = playerEntity.getBlockPos();
+        Dimension dimension = dimension();
+        Location location = this.location;
+        // Only allocate a new location once the player has moved to another block
+        if (location == null
+                || location.dimension != dimension
+                || location.x.intValue() != blockPos.getX()
+                || location.y.intValue() != blockPos.getY()
+                || location.z.intValue() != blockPos.getZ()) {
+            location = new Location((double)blockPos.getX(), (double)blockPos.getY(), (double)blockPos.getZ(), dimension);
+            this.location = location;
+        }
+        return location;
+    }
+
+    @Override
+    public void sampleLocation(MutableLocation location) {
+        BlockPos blockPos = playerEntity.getBlockPos();
+        location.set(blockPos.getX(), blockPos.getY(), blockPos.getZ(), dimension());
+    }
+
+    /**
+     * The dimension is resolved once per world instance, as the client creates a new world on dimension change
+     */
+    private Dimension dimension() {
+        World world = playerEntity.getEntityWorld();
+        WorldDimension worldDimension = this.worldDimension;
+        if (worldDimension == null || worldDimension.world != world) {
+            worldDimension = new WorldDimension(world, dimensionOf(world));
+            this.worldDimension = worldDimension;
+        }
+        return worldDimension.dimension;
+    }
+
+    private static Dimension dimensionOf(World world) {
+        Identifier skyProperties = world.getDimension().getSkyProperties();
         if (OVERWORLD_ID.equals(skyProperties)) {
-            dimension = Dimension.OVERWORLD;
+            return Dimension.OVERWORLD;
         } else if (THE_END_ID.equals(skyProperties)) {
-            dimension = Dimension.END;
+            return Dimension.END;
         } else if (THE_NETHER_ID.equals(skyProperties)) {
-            dimension = Dimension.NETHER;
+            return Dimension.NETHER;
         } else {
-            dimension = Dimension.UNKNOWN;
+            return Dimension.UNKNOWN;
         }
-        BlockPos blockPos = playerEntity.getBlockPos();
-        return new Location((double)blockPos.getX(), (double)blockPos.getY(), (double)blockPos.getZ(), dimension);
     }
 
-    private BufferedImage defaultAvatar() {
+    private CompletableFuture<BufferedImage> defaultAvatar() {
         MinecraftClient minecraftClient = MinecraftClient.getInstance();
         if (minecraftClient == null) {
             throw new IllegalStateException("minecraftClient");
         }
         Identifier skinTexture = this.playerEntity.getSkinTexture();
-        try {
-            Resource resource = minecraftClient.getResourceManager().getResource(skinTexture);
-            BufferedImage skin = ImageIO.read(resource.getInputStream());
-            return skin.getSubimage(8, 8, 15, 15);
-        } catch (IOException e) {
-            throw new IllegalStateException("could not load skin for " + this);
-        }
-    }
-
-    private static NativeImage nativeImageFrom(BufferedImage img) {
-        NativeImage nativeImage = new NativeImage(img.getWidth(), img.getHeight(), true);
-        for (int width = 0; width < img.getWidth(); width++) {
-            for (int height = 0; height < img.getHeight(); height++) {
-                nativeImage.setPixelColor(width, height, img.getRGB(width, height));
+        return AVATARS.get(skinTexture, () -> {
+            try (Resource resource = minecraftClient.getResourceManager().getResource(skinTexture);
+                 InputStream stream = resource.getInputStream()) {
+                return ImageIO.read(stream);
             }
-        }
-        return nativeImage;
+        });
     }
 
     @Override
     public String toString() {
         return playerEntity.getUuid() + " " + playerEntity.getName();
     }
+
+    private static final class WorldDimension {
+        public final World world;
+        public final Dimension dimension;
+
+        public WorldDimension(World world, Dimension dimension) {
+            this.world = world;
+            this.dimension = dimension;
+        }
+    }
 }
@@ -1,8 +1,9 @@
 package com.collarmc.plastic;
 
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.AbstractClientPlayerEntity;
 import net.minecraft.client.network.ClientPlayerEntity;
-import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
 import org.jetbrains.annotations.NotNull;
 import com.collarmc.plastic.chat.ChatService;
 import com.collarmc.plastic.player.Player;
@@ -10,9 +11,6 @@ import com.collarmc.plastic.ui.TextureProvider;
 import com.collarmc.plastic.world.World;
 import com.collarmc.pounce.EventBus;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class GlueWorld extends World {
 
     public GlueWorld(TextureProvider textureProvider, ChatService chatService, EventBus eventBus) {
@@ -21,18 +19,31 @@ public class GlueWorld extends World {
 
     @Override
     public Player currentPlayer() {
-        return new GluePlayer(getPlayer(), textureProvider);
+        ClientPlayerEntity player = getPlayer();
+        return findPlayerById(player.getUuid()).orElseGet(() -> new GluePlayer(player, textureProvider));
     }
 
     @Override
-    public List<Player> allPlayers() {
-        ClientWorld world = MinecraftClient.getInstance().world;
-        if (world == null) {
-            throw new IllegalStateException("no world");
+    public boolean hasCurrentPlayer() {
+        return MinecraftClient.getInstance().player != null;
+    }
+
+    /**
+     * Registers players as their entities are added to the client world
+     * @param entity added
+     */
+    public void onEntityAdded(Entity entity) {
+        if (entity instanceof AbstractClientPlayerEntity) {
+            players.add(new GluePlayer((AbstractClientPlayerEntity) entity, textureProvider));
         }
-        return world.getPlayers().stream()
-                .map(playerEntity -> new GluePlayer(playerEntity, textureProvider))
-                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forgets players as their entities are removed from the client world
+     * @param networkId of the removed entity
+     */
+    public void onEntityRemoved(int networkId) {
+        players.removeByNetworkId(networkId);
     }
 
     @NotNull
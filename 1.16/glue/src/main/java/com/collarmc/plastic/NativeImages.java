@@ -0,0 +1,132 @@
+package com.collarmc.plastic;
+
+import com.collarmc.mod.glue.mixin.NativeImageMixin;
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.awt.image.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts {@link BufferedImage}s into {@link NativeImage}s.
+ * Each row is swizzled into RGBA on the heap and written into native memory in one go, rather than going through
+ * {@link BufferedImage#getRGB(int, int)} and {@link NativeImage#setPixelColor(int, int, int)} a pixel at a time.
+ * Common raster layouts are read straight from their backing arrays.
+ */
+public final class NativeImages {
+
+    private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+    private static final int[] ABGR_BAND_OFFSETS = new int[] {3, 2, 1, 0};
+
+    private NativeImages() {}
+
+    /**
+     * @param image to convert
+     * @return new native image, owned by the caller
+     */
+    public static NativeImage fromBufferedImage(BufferedImage image) {
+        NativeImage nativeImage = new NativeImage(image.getWidth(), image.getHeight(), true);
+        copy(image, nativeImage);
+        return nativeImage;
+    }
+
+    /**
+     * Overwrites a native image with the contents of the buffered image
+     * @param image to copy
+     * @param nativeImage to copy into, must be a 4 channel image of the same size
+     */
+    public static void copy(BufferedImage image, NativeImage nativeImage) {
+        if (nativeImage.getWidth() != image.getWidth() || nativeImage.getHeight() != image.getHeight()) {
+            throw new IllegalArgumentException("image is " + image.getWidth() + "x" + image.getHeight() + " but native image is " + nativeImage.getWidth() + "x" + nativeImage.getHeight());
+        }
+        if (nativeImage.getFormat().getChannelCount() != 4) {
+            throw new IllegalArgumentException("native image has " + nativeImage.getFormat().getChannelCount() + " channels");
+        }
+        copy(image, ((NativeImageMixin)(Object)nativeImage).pointer());
+    }
+
+    /**
+     * Writes the image as tightly packed RGBA bytes, the layout of a 4 channel {@link NativeImage}
+     * @param image to copy
+     * @param address of width * height * 4 bytes of native memory, e.g. from {@link MemoryUtil#nmemAlloc(long)}
+     */
+    public static void copy(BufferedImage image, long address) {
+        WritableRaster raster = image.getRaster();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+        // Sub images share the backing array of their parent, so start from where the raster is translated to
+        int originX = -raster.getSampleModelTranslateX();
+        int originY = -raster.getSampleModelTranslateY();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && dataBuffer instanceof DataBufferInt
+                && sampleModel instanceof SinglePixelPackedSampleModel) {
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+            copyIntArgb(((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset() + packed.getOffset(originX, originY), packed.getScanlineStride(), image.getWidth(), image.getHeight(), address);
+        } else if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR
+                && dataBuffer instanceof DataBufferByte
+                && sampleModel instanceof PixelInterleavedSampleModel
+                && ((PixelInterleavedSampleModel) sampleModel).getPixelStride() == 4
+                && Arrays.equals(((PixelInterleavedSampleModel) sampleModel).getBandOffsets(), ABGR_BAND_OFFSETS)) {
+            PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+            copyByteAbgr(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset() + originY * interleaved.getScanlineStride() + originX * 4, interleaved.getScanlineStride(), image.getWidth(), image.getHeight(), address);
+        } else {
+            copyRows(image, address);
+        }
+    }
+
+    private static void copyIntArgb(int[] data, int offset, int stride, int width, int height, long address) {
+        IntBuffer pixels = MemoryUtil.memIntBuffer(address, width * height);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int start = offset + y * stride;
+            for (int x = 0; x < width; x++) {
+                row[x] = rgba(data[start + x]);
+            }
+            pixels.put(row);
+        }
+    }
+
+    private static void copyByteAbgr(byte[] data, int offset, int stride, int width, int height, long address) {
+        ByteBuffer pixels = MemoryUtil.memByteBuffer(address, width * height * 4);
+        byte[] row = new byte[width * 4];
+        for (int y = 0; y < height; y++) {
+            int i = offset + y * stride;
+            for (int x = 0; x < row.length; x += 4, i += 4) {
+                // Stored as A, B, G, R and written as R, G, B, A
+                row[x] = data[i + 3];
+                row[x + 1] = data[i + 2];
+                row[x + 2] = data[i + 1];
+                row[x + 3] = data[i];
+            }
+            pixels.put(row);
+        }
+    }
+
+    /**
+     * Any other layout is converted to ARGB by the image's color model a row at a time
+     */
+    private static void copyRows(BufferedImage image, long address) {
+        int width = image.getWidth();
+        IntBuffer pixels = MemoryUtil.memIntBuffer(address, width * image.getHeight());
+        int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                row[x] = rgba(row[x]);
+            }
+            pixels.put(row);
+        }
+    }
+
+    /**
+     * @param argb pixel
+     * @return pixel as an int that is laid out as R, G, B, A in native memory
+     */
+    private static int rgba(int argb) {
+        int abgr = (argb & 0xFF00FF00) | ((argb >> 16) & 0xFF) | ((argb & 0xFF) << 16);
+        return BIG_ENDIAN ? Integer.reverseBytes(abgr) : abgr;
+    }
+}
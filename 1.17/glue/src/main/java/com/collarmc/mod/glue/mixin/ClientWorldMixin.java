@@ -1,6 +1,8 @@
 package com.collarmc.mod.glue.mixin;
 
+import com.collarmc.plastic.GlueWorld;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -13,4 +15,14 @@ public class ClientWorldMixin {
     public void init(CallbackInfo callbackInfo) {
         Plastic.getPlastic().world.onWorldLoaded();
     }
+
+    @Inject(method = "addEntityPrivate", at = @At("TAIL"))
+    public void addEntity(int id, Entity entity, CallbackInfo callbackInfo) {
+        ((GlueWorld) Plastic.getPlastic().world).onEntityAdded(entity);
+    }
+
+    @Inject(method = "removeEntity", at = @At("HEAD"))
+    public void removeEntity(int id, Entity.RemovalReason removalReason, CallbackInfo callbackInfo) {
+        ((GlueWorld) Plastic.getPlastic().world).onEntityRemoved(id);
+    }
 }
@@ -1,16 +1,27 @@
 package com.collarmc.mod.glue.mixin;
 
+import com.collarmc.plastic.GluePlayer;
 import net.minecraft.client.MinecraftClient;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import com.collarmc.plastic.Plastic;
 
+import java.util.concurrent.CompletableFuture;
+
 @Mixin(MinecraftClient.class)
 public abstract class MinecraftClientMixin {
     @Inject(at = @At("HEAD"), method = "tick")
     private void onStartTick(CallbackInfo info) {
         Plastic.getPlastic().onTick();
     }
+
+    @Inject(at = @At("RETURN"), method = "reloadResources")
+    private void onReloadResources(CallbackInfoReturnable<CompletableFuture<Void>> info) {
+        // Forget avatars cut out while the reload is running as well
+        GluePlayer.invalidateAvatars();
+        info.getReturnValue().thenRun(GluePlayer::invalidateAvatars);
+    }
 }
@@ -0,0 +1,11 @@
+package com.collarmc.mod.glue.mixin;
+
+import net.minecraft.client.texture.NativeImage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(NativeImage.class)
+public interface NativeImageMixin {
+    @Accessor(value = "pointer")
+    long pointer();
+}
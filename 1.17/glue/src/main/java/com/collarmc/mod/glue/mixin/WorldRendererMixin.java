@@ -17,6 +17,6 @@ import com.collarmc.plastic.Plastic;
 public abstract class WorldRendererMixin {
     @Inject(method = "render", at = @At("TAIL"))
     public void render(MatrixStack matrices, float tickDelta, long limitTime, boolean renderBlockOutline, Camera camera, GameRenderer gameRenderer, LightmapTextureManager lightmapTextureManager, Matrix4f matrix4f, CallbackInfo info) {
-        Plastic.getPlastic().eventBus.dispatch(new WorldRenderEvent(tickDelta, matrices));
+        Plastic.getPlastic().eventBus.dispatch(new WorldRenderEvent(tickDelta, matrices, camera, matrix4f));
     }
 }
@@ -4,8 +4,8 @@ import net.minecraft.util.math.Vec3d;
 
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.system.MemoryStack;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
@@ -15,44 +15,43 @@ public enum ProjectionUtil {
 
     INSTANCE;
 
-    private IntBuffer viewport;
+    private static final Projection FAILED = new Projection(0.0, 0.0, Projection.Type.FAIL);
+
+    // Owned for the lifetime of the game, so they are never freed while GL still writes to them
+    private final IntBuffer viewport = BufferUtils.createIntBuffer(16);
     private final int[] viewPortArray = new int[16];
 
-    private FloatBuffer modelView;
-    private FloatBuffer projection;
+    private final FloatBuffer modelView = BufferUtils.createFloatBuffer(16);
+    private final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+    private final float[] lastModelView = new float[16];
+    private final float[] lastProjection = new float[16];
     private int windowWidth, windowHeight;
     private double windowScale = 1.0;
 
-    private Matrix4f viewProjectionMatrix;
-
-    private boolean hasBeenInitialized, hasBeenUpdated;
+    private final Matrix4f viewProjectionMatrix = new Matrix4f();
+    private final Matrix4f modelViewMatrix = new Matrix4f();
+    private final Vector3f screenCoords = new Vector3f();
 
-    private void initBuffers() {
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            viewport = stack.mallocInt(16);
-            modelView = stack.mallocFloat(16);
-            projection = stack.mallocFloat(16);
-        }
-    }
+    private boolean hasBeenUpdated;
 
     public void updateBuffers() {
-        // malloc to the temp use 64KB (by default) memory stack
-        initBuffers();
-
         GL11.glGetIntegerv(GL11.GL_VIEWPORT, viewport);
         GL11.glGetFloatv(GL11.GL_MODELVIEW_MATRIX, modelView);
         GL11.glGetFloatv(GL11.GL_PROJECTION_MATRIX, projection);
 
+        boolean viewportChanged = windowWidth != viewport.get(2) || windowHeight != viewport.get(3);
+        boolean cameraChanged = copyIfChanged(modelView, lastModelView) | copyIfChanged(projection, lastProjection);
+        if (hasBeenUpdated && !viewportChanged && !cameraChanged) {
+            return;
+        }
+
         windowWidth = viewport.get(2);
         windowHeight = viewport.get(3);
 
         viewPortArray[2] = windowWidth;
         viewPortArray[3] = windowHeight;
 
-        Matrix4f projectionMatrix = new Matrix4f(projection);
-        Matrix4f modelViewMatrix = new Matrix4f(modelView);
-
-        viewProjectionMatrix = projectionMatrix.mul(modelViewMatrix);
+        viewProjectionMatrix.set(projection).mul(modelViewMatrix.set(modelView));
 
         hasBeenUpdated = true;
     }
@@ -63,7 +62,7 @@ public enum ProjectionUtil {
 
     public Projection projection(double x, double y, double z, boolean projectOutside) {
         if (hasBeenUpdated) {
-            Vector3f screenCoordsJOML = viewProjectionMatrix.project((float) x, (float) y, (float) z, viewPortArray, new Vector3f());
+            Vector3f screenCoordsJOML = viewProjectionMatrix.project((float) x, (float) y, (float) z, viewPortArray, screenCoords);
 
             float sX = screenCoordsJOML.x();
             float sY = screenCoordsJOML.y();
@@ -76,24 +75,21 @@ public enum ProjectionUtil {
                 return new Projection(scaledScreenX, scaledScreenY, Projection.Type.INSIDE);
             }
             else if(projectOutside) {
-                Vec3d pos = new Vec3d(x, y, z);
-                Vec3d c = new Vec3d(0, 0, 0);
-                Vec3d flipped = pos.add(c.subtract(pos).multiply(2));
-
-                screenCoordsJOML = viewProjectionMatrix.project((float) flipped.getX(), (float) flipped.getY(), (float) flipped.getZ(), viewPortArray, new Vector3f());
+                // Mirror the point through the origin to find which side of the screen it is on
+                screenCoordsJOML = viewProjectionMatrix.project((float) -x, (float) -y, (float) -z, viewPortArray, screenCoords);
 
                 if (screenCoordsJOML.z() >= 0.0 && screenCoordsJOML.z() <= 1.0) {
-                    scaledScreenX = sX * this.windowScale;
-                    scaledScreenY = (this.windowHeight - sY) * this.windowScale;
-
                     scaledScreenX = this.windowWidth * this.windowScale - scaledScreenX;
                     scaledScreenY = this.windowHeight * this.windowScale - scaledScreenY;
 
-                    Vec3d expand = new Vec3d(scaledScreenX, scaledScreenY, 0);
-                    Vec3d center = new Vec3d(this.windowWidth * this.windowScale / 2.0, this.windowHeight * this.windowScale / 2.0, 0);
-                    expand = expand.subtract(center).normalize().multiply(this.windowWidth * 2).add(center);
+                    double centerX = this.windowWidth * this.windowScale / 2.0;
+                    double centerY = this.windowHeight * this.windowScale / 2.0;
+                    double dx = scaledScreenX - centerX;
+                    double dy = scaledScreenY - centerY;
+                    double length = Math.sqrt(dx * dx + dy * dy);
+                    double scale = length < 1.0E-4 ? 0 : this.windowWidth * 2 / length;
 
-                    return new Projection(expand.getX(), expand.getY(), Projection.Type.OUTSIDE);
+                    return new Projection(dx * scale + centerX, dy * scale + centerY, Projection.Type.OUTSIDE);
                 }
 
                 // This is an invalid point caused by projecting too close to the near clipping plane.
@@ -101,7 +97,7 @@ public enum ProjectionUtil {
             }
         }
 
-        return new Projection(0.0, 0.0, Projection.Type.FAIL);
+        return FAILED;
     }
 
     public Vec3d doUnproject(int x, int y) {
@@ -113,5 +109,15 @@ public enum ProjectionUtil {
         return null;
     }
 
+    private static boolean copyIfChanged(FloatBuffer buffer, float[] last) {
+        boolean changed = false;
+        for (int i = 0; i < last.length; i++) {
+            float value = buffer.get(i);
+            if (value != last[i]) {
+                last[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
 }
-
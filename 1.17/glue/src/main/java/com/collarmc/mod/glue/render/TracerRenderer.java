@@ -1,24 +1,63 @@
 package com.collarmc.mod.glue.render;
 
-import net.minecraft.client.MinecraftClient;
+import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.render.*;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Matrix4f;
 import net.minecraft.util.math.Vec3d;
 import org.joml.Vector3d;
 import org.lwjgl.opengl.GL11;
+import com.collarmc.api.groups.GroupType;
 import com.collarmc.api.location.Location;
 import com.collarmc.client.Collar;
+import com.collarmc.client.api.groups.events.GroupJoinedEvent;
+import com.collarmc.client.api.groups.events.GroupLeftEvent;
+import com.collarmc.client.events.CollarStateChangedEvent;
 import com.collarmc.mod.common.CollarService;
 import com.collarmc.plastic.Plastic;
 import com.collarmc.pounce.Preference;
 import com.collarmc.pounce.Subscribe;
 
 import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Draws a line from the current player to every player sharing their location.
+ * All lines of a frame are written to one buffer and drawn with a single draw call, coloured by the group the player
+ * shares with us and faded out with distance.
+ */
 public final class TracerRenderer {
 
+    /**
+     * Lines start fading at this distance
+     */
+    private static final double FADE_START = 64;
+
+    /**
+     * Lines are drawn with {@link #MIN_ALPHA} from this distance
+     */
+    private static final double FADE_END = 512;
+    private static final float MIN_ALPHA = 0.25f;
+    private static final float LINE_WIDTH = 3f;
+
+    private static final Color NO_GROUP_COLOR = Color.MAGENTA;
+    private static final Color[] GROUP_COLORS = new Color[] {
+            Color.CYAN, Color.ORANGE, Color.GREEN, Color.YELLOW, Color.PINK, Color.BLUE, Color.RED, Color.WHITE
+    };
+
+    /**
+     * Group membership is not announced by events, so colours are refreshed at most this often when a player is missing
+     */
+    private static final long COLOR_REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private final Plastic plastic;
     private final CollarService service;
+    private Map<UUID, Color> colors = new HashMap<>();
+    private volatile boolean colorsDirty = true;
+    private long colorsUpdatedAt;
 
     public TracerRenderer(Plastic plastic, CollarService service) {
         this.plastic = plastic;
@@ -27,55 +66,97 @@ public final class TracerRenderer {
 
     @Subscribe(Preference.CALLER)
     public void onRender(WorldRenderEvent event) {
-        ProjectionUtil.INSTANCE.updateBuffers();
-
-
         service.getCollar().ifPresent(collar -> {
             if (collar.getState() != Collar.State.CONNECTED || !collar.configuration.debugMode) {
                 return;
             }
+            // Don't show where other players are if they are not in the same dimension
+            Location playerLocation = service.worldSnapshot().location;
+            if (playerLocation.equals(Location.UNKNOWN)) {
+                return;
+            }
+            if (colorsDirty && System.nanoTime() - colorsUpdatedAt > COLOR_REFRESH_INTERVAL) {
+                colors = groupColors(collar);
+                colorsDirty = false;
+                colorsUpdatedAt = System.nanoTime();
+            }
+            Vec3d camera = event.camera.getPos();
+            Matrix4f model = event.matrixStack.peek().getModel();
+            Tessellator tessellator = Tessellator.getInstance();
+            BufferBuilder buffer = tessellator.getBuffer();
+            buffer.begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
             collar.location().playerLocations().forEach((player, location) -> {
-                // Don't show where other players are if they are not in the same dimension
-                Location playerLocation = plastic.world.currentPlayer().location();
                 if (!location.dimension.equals(playerLocation.dimension)) {
                     return;
                 }
-                renderLine(from(playerLocation), from(location), Color.MAGENTA, 3f);
+                Color color = colors.get(player.identity.id());
+                if (color == null) {
+                    color = NO_GROUP_COLOR;
+                    colorsDirty = true;
+                }
+                float alpha = alpha(playerLocation, location);
+                line(buffer, model, camera, playerLocation, location, color, alpha);
             });
+            RenderSystem.setShader(GameRenderer::getPositionColorShader);
+            RenderSystem.disableTexture();
+            RenderSystem.enableBlend();
+            RenderSystem.defaultBlendFunc();
+            RenderSystem.disableDepthTest();
+            GL11.glEnable(GL11.GL_LINE_SMOOTH);
+            RenderSystem.lineWidth(LINE_WIDTH);
+            tessellator.draw();
+            RenderSystem.lineWidth(1f);
+            GL11.glDisable(GL11.GL_LINE_SMOOTH);
+            RenderSystem.enableDepthTest();
+            RenderSystem.disableBlend();
+            RenderSystem.enableTexture();
+        });
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupJoined(GroupJoinedEvent event) {
+        colorsDirty = true;
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupLeft(GroupLeftEvent event) {
+        colorsDirty = true;
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onStateChanged(CollarStateChangedEvent event) {
+        colorsDirty = true;
+    }
+
+    private static Map<UUID, Color> groupColors(Collar collar) {
+        Map<UUID, Color> colors = new HashMap<>();
+        collar.groups().all().forEach(group -> {
+            if (group.type == GroupType.NEARBY) {
+                return;
+            }
+            Color color = GROUP_COLORS[Math.floorMod(group.id.hashCode(), GROUP_COLORS.length)];
+            group.members.forEach(member -> colors.putIfAbsent(member.player.identity.id(), color));
         });
+        // Players sharing their location without a group are remembered too, so they do not flag the colours as dirty
+        collar.location().playerLocations().keySet().forEach(player -> colors.putIfAbsent(player.identity.id(), NO_GROUP_COLOR));
+        return colors;
     }
 
-    private Vec3d from(Location location) {
-        return new Vec3d(location.x, location.y, location.z);
+    private static float alpha(Location from, Location to) {
+        double dx = to.x - from.x;
+        double dy = to.y - from.y;
+        double dz = to.z - from.z;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double fade = MathHelper.clamp((distance - FADE_START) / (FADE_END - FADE_START), 0, 1);
+        return (float) MathHelper.lerp(fade, 1f, MIN_ALPHA);
     }
 
-    private static void renderLine(Vec3d from, Vec3d to, Color col, float width) {
-        Camera c = MinecraftClient.getInstance().getEntityRenderDispatcher().camera;
-        GL11.glPushMatrix();
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-        GL11.glEnable(GL11.GL_LINE_SMOOTH);
-        GL11.glLineWidth(width);
-        GL11.glDisable(GL11.GL_TEXTURE_2D);
-        GL11.glEnable(GL11.GL_CULL_FACE);
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
-        GL11.glDisable(GL11.GL_LIGHTING);
-        GL11.glRotated(MathHelper.wrapDegrees(c.getPitch()), 1, 0, 0);
-        GL11.glRotated(MathHelper.wrapDegrees(c.getYaw() + 180.0), 0, 1, 0);
-        GL11.glColor4f(col.getRed() / 255F, col.getGreen() / 255F, col.getBlue() / 255F, col.getAlpha() / 255F);
-        GL11.glBegin(GL11.GL_LINES);
-        {
-            Vec3d f1 = from.subtract(c.getPos());
-            Vec3d t1 = to.subtract(c.getPos());
-            GL11.glVertex3d(f1.x, f1.y, f1.z);
-            GL11.glVertex3d(t1.x, t1.y, t1.z);
-        }
-        GL11.glEnd();
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
-        GL11.glEnable(GL11.GL_TEXTURE_2D);
-        GL11.glDisable(GL11.GL_BLEND);
-        GL11.glDisable(GL11.GL_LINE_SMOOTH);
-        GL11.glPopMatrix();
+    private static void line(BufferBuilder buffer, Matrix4f model, Vec3d camera, Location from, Location to, Color color, float alpha) {
+        float r = color.getRed() / 255F;
+        float g = color.getGreen() / 255F;
+        float b = color.getBlue() / 255F;
+        buffer.vertex(model, (float) (from.x - camera.x), (float) (from.y - camera.y), (float) (from.z - camera.z)).color(r, g, b, alpha).next();
+        buffer.vertex(model, (float) (to.x - camera.x), (float) (to.y - camera.y), (float) (to.z - camera.z)).color(r, g, b, alpha).next();
     }
 
     private static Vector3d lerpPos(Location location, final float alpha) {
@@ -1,13 +1,19 @@
 package com.collarmc.mod.glue.render;
 
+import net.minecraft.client.render.Camera;
 import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Matrix4f;
 
 public final class WorldRenderEvent {
     public final float tickDelta;
     public final MatrixStack matrixStack;
+    public final Camera camera;
+    public final Matrix4f projectionMatrix;
 
-    public WorldRenderEvent(float tickDelta, MatrixStack matrixStack) {
+    public WorldRenderEvent(float tickDelta, MatrixStack matrixStack, Camera camera, Matrix4f projectionMatrix) {
         this.tickDelta = tickDelta;
         this.matrixStack = matrixStack;
+        this.camera = camera;
+        this.projectionMatrix = projectionMatrix;
     }
 }
@@ -0,0 +1,68 @@
+package com.collarmc.plastic;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dynamic textures registered for players, e.g. capes.
+ * Each texture name is registered once and later images of the same size are uploaded into the existing texture.
+ * Only use from the render thread.
+ */
+public enum PlayerTextures {
+
+    INSTANCE;
+
+    private final Map<String, Registered> textures = new HashMap<>();
+
+    /**
+     * @param name of the texture
+     * @param image to upload
+     * @return identifier of the texture
+     */
+    public Identifier upload(String name, BufferedImage image) {
+        MinecraftClient minecraftClient = MinecraftClient.getInstance();
+        if (!minecraftClient.isOnThread()) {
+            throw new IllegalStateException("textures can only be uploaded from the render thread");
+        }
+        Registered registered = textures.get(name);
+        if (registered != null) {
+            NativeImage current = registered.texture.getImage();
+            if (current != null && current.getWidth() == image.getWidth() && current.getHeight() == image.getHeight()) {
+                NativeImages.copy(image, current);
+                registered.texture.upload();
+                return registered.identifier;
+            }
+            // The GL texture was allocated for the old size, so start again
+            minecraftClient.getTextureManager().destroyTexture(registered.identifier);
+        }
+        NativeImageBackedTexture texture = new NativeImageBackedTexture(NativeImages.fromBufferedImage(image));
+        Identifier identifier = minecraftClient.getTextureManager().registerDynamicTexture(name, texture);
+        textures.put(name, new Registered(texture, identifier));
+        return identifier;
+    }
+
+    /**
+     * @param name of the texture
+     * @return identifier of the texture if it was uploaded before, otherwise null
+     */
+    public Identifier find(String name) {
+        Registered registered = textures.get(name);
+        return registered == null ? null : registered.identifier;
+    }
+
+    private static final class Registered {
+        public final NativeImageBackedTexture texture;
+        public final Identifier identifier;
+
+        public Registered(NativeImageBackedTexture texture, Identifier identifier) {
+            this.texture = texture;
+            this.identifier = identifier;
+        }
+    }
+}
@@ -8,20 +8,25 @@ import com.collarmc.client.CollarException;
 import com.collarmc.client.events.*;
 import com.collarmc.client.minecraft.Ticks;
 import com.collarmc.client.plugin.Plugins;
+import com.collarmc.mod.common.commands.suggestions.SuggestionIndexes;
 import com.collarmc.mod.common.features.Friends;
 import com.collarmc.mod.common.features.Groups;
 import com.collarmc.mod.common.features.Locations;
 import com.collarmc.mod.common.features.messaging.Messaging;
 import com.collarmc.mod.common.integrations.Integrations;
+import com.collarmc.mod.common.waypoints.WaypointIndex;
+import com.collarmc.mod.common.workers.Workers;
 import com.collarmc.plastic.Plastic;
 import com.collarmc.plastic.events.client.ClientConnectedEvent;
 import com.collarmc.plastic.events.client.ClientDisconnectedEvent;
 import com.collarmc.plastic.events.client.OnTickEvent;
 import com.collarmc.plastic.events.world.WorldLoadedEvent;
 import com.collarmc.plastic.player.Player;
+import com.collarmc.plastic.world.MutableLocation;
 import com.collarmc.plastic.ui.TextAction.OpenLinkAction;
 import com.collarmc.plastic.ui.TextBuilder;
 import com.collarmc.plastic.ui.TextColor;
+import com.google.common.collect.ImmutableSet;
 import com.collarmc.pounce.EventBus;
 import com.collarmc.pounce.Preference;
 import com.collarmc.pounce.Subscribe;
@@ -32,12 +37,9 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import static com.collarmc.client.Collar.State.CONNECTED;
 
@@ -45,23 +47,28 @@ public class CollarService {
 
     private static final Logger LOGGER = LogManager.getLogger(CollarService.class.getName());
 
-    private final Lock connectionLock = new ReentrantLock();
-    private final ExecutorService backgroundJobs;
+    private final AtomicBoolean connectionInProgress = new AtomicBoolean();
     private final ConnectionState connectionState = new ConnectionState(this);
     private transient Collar collar;
     private final Plastic plastic;
     private final EventBus eventBus;
     private final Ticks ticks;
     private final Plugins plugins;
+    private volatile WorldSnapshot worldSnapshot = WorldSnapshot.EMPTY;
+    private List<Player> snapshotPlayers;
+    private final MutableLocation snapshotLocation = new MutableLocation();
 
     public final Locations locations;
     public final Friends friends;
     public final Messaging messaging;
     public final Groups groups;
     public final Integrations integrations;
+    public final Workers workers;
+    public final SuggestionIndexes suggestions;
+    public final WaypointIndex waypoints;
 
     public CollarService(Plastic plastic, EventBus eventBus, Plugins plugins) {
-        this.integrations = new Integrations(plastic, eventBus);
+        this.integrations = new Integrations(plastic, eventBus, this);
         this.plastic = plastic;
         this.eventBus = eventBus;
         this.ticks = new Ticks();
@@ -70,11 +77,9 @@ public class CollarService {
         this.friends = new Friends(plastic, eventBus);
         this.messaging = new Messaging(plastic, eventBus);
         this.groups = new Groups(plastic, eventBus);
-        this.backgroundJobs = Executors.newCachedThreadPool(r -> {
-            Thread thread = new Thread(r);
-            thread.setName("Collar Worker");
-            return thread;
-        });
+        this.workers = new Workers();
+        this.suggestions = new SuggestionIndexes(plastic, eventBus, this);
+        this.waypoints = new WaypointIndex(eventBus, this);
         eventBus.subscribe(this);
         eventBus.subscribe(connectionState);
     }
@@ -83,6 +88,13 @@ public class CollarService {
         return collar == null ? Optional.empty() : Optional.of(collar);
     }
 
+    /**
+     * @return the world as it was at the start of the last tick, safe to read from any thread
+     */
+    public WorldSnapshot worldSnapshot() {
+        return worldSnapshot;
+    }
+
     public void with(Consumer<Collar> action, Runnable emptyAction) {
         if (collar == null || !collar.getState().equals(CONNECTED)) {
             if (emptyAction != null) {
@@ -101,12 +113,12 @@ public class CollarService {
 
     public void connect() {
         LOGGER.info("Attempting to connect...");
-        if (!connectionLock.tryLock()) {
+        if (!connectionInProgress.compareAndSet(false, true)) {
             LOGGER.info("Connection already in progress.");
             return;
         }
         connectionState.setAttempted(true);
-        backgroundJobs.submit(() -> {
+        runConnectionJob(() -> {
             try {
                 collar = createCollar();
                 collar.connect();
@@ -115,32 +127,46 @@ public class CollarService {
                 String msg = "Connection failed " + e.getMessage();
                 plastic.display.displayErrorMessage(msg);
                 LOGGER.error(msg, e);
-            } finally {
-                connectionLock.unlock();
             }
         });
     }
 
     public void disconnect() {
-        if (!connectionLock.tryLock()) {
+        if (!connectionInProgress.compareAndSet(false, true)) {
             return;
         }
         connectionState.setAttempted(false);
-        backgroundJobs.submit(() -> {
-            try {
-                if (collar != null) {
-                    collar.disconnect();
-                    collar = null;
-                }
-            } finally {
-                connectionLock.unlock();
+        runConnectionJob(() -> {
+            if (collar != null) {
+                collar.disconnect();
+                collar = null;
             }
         });
     }
 
+    /**
+     * Runs connect or disconnect work, clearing the in progress flag when done.
+     * The flag is not a lock, as it is set on the caller thread and cleared on the worker thread
+     * @param job to run
+     */
+    private void runConnectionJob(Runnable job) {
+        try {
+            workers.connection.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    connectionInProgress.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            connectionInProgress.set(false);
+            LOGGER.error("Could not schedule connection job", e);
+        }
+    }
+
     @Subscribe
     public void onStateChanged(CollarStateChangedEvent event) {
-        backgroundJobs.submit(() -> {
+        workers.background.execute(() -> {
             switch (event.state) {
                 case CONNECTING:
                     plastic.display.displayInfoMessage("Collar connecting...");
@@ -200,8 +226,8 @@ public class CollarService {
                 .withEventBus(eventBus)
                 .withTicks(ticks)
                 .withHomeDirectory(collarHome())
-                .withPlayerLocation(() -> plastic.world.currentPlayer().location())
-                .withEntitiesSupplier(this::nearbyPlayerEntities)
+                .withPlayerLocation(() -> worldSnapshot.location)
+                .withEntitiesSupplier(() -> worldSnapshot.nearbyPlayers)
                 .withSession(this::getMinecraftSession).build();
         return Collar.create(configuration);
     }
@@ -227,17 +253,46 @@ public class CollarService {
         );
     }
 
-    private Set<Entity> nearbyPlayerEntities() {
-        return plastic.world.allPlayers().stream()
-                .map(entityPlayer -> new Entity(entityPlayer.networkId(), EntityType.PLAYER))
-                .collect(Collectors.toSet());
-    }
-
     @Subscribe(Preference.POOL)
     private void onTick(OnTickEvent event) {
         with(i -> ticks.onTick(), null);
     }
 
+    /**
+     * Publishes a new {@link WorldSnapshot} from the game thread.
+     * The entity set is only rebuilt when the player registry changed since the last tick.
+     */
+    @Subscribe(Preference.CALLER)
+    private void takeWorldSnapshot(OnTickEvent event) {
+        if (!plastic.world.hasCurrentPlayer()) {
+            return;
+        }
+        List<Player> players = plastic.world.allPlayers();
+        ImmutableSet<Entity> nearbyPlayers;
+        if (players == snapshotPlayers) {
+            nearbyPlayers = worldSnapshot.nearbyPlayers;
+        } else {
+            nearbyPlayers = players.stream()
+                    .filter(player -> player.networkId() >= 0)
+                    .map(player -> new Entity(player.networkId(), EntityType.PLAYER))
+                    .collect(ImmutableSet.toImmutableSet());
+            snapshotPlayers = players;
+        }
+        // Sampled into a reused holder, so an idle tick allocates and publishes nothing
+        plastic.world.currentPlayer().sampleLocation(snapshotLocation);
+        WorldSnapshot previous = worldSnapshot;
+        boolean moved = !snapshotLocation.isSameBlock(previous.location);
+        if (moved || previous.nearbyPlayers != nearbyPlayers) {
+            worldSnapshot = new WorldSnapshot(moved ? snapshotLocation.toLocation() : previous.location, nearbyPlayers);
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    private void clearWorldSnapshot(ClientDisconnectedEvent event) {
+        snapshotPlayers = null;
+        worldSnapshot = WorldSnapshot.EMPTY;
+    }
+
     private TextBuilder rainbowText(String text) {
         TextBuilder builder = plastic.display.newTextBuilder();
         Random random = new Random();
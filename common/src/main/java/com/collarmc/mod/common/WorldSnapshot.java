@@ -0,0 +1,36 @@
+package com.collarmc.mod.common;
+
+import com.collarmc.api.entities.Entity;
+import com.collarmc.api.location.Dimension;
+import com.collarmc.api.location.Location;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Immutable view of the client world, taken on the game thread once per tick.
+ * Collar reads this from its own threads so it never touches live game state.
+ */
+public final class WorldSnapshot {
+
+    public static final WorldSnapshot EMPTY = new WorldSnapshot(Location.UNKNOWN, ImmutableSet.of());
+
+    /**
+     * Location of the current player
+     */
+    public final Location location;
+
+    /**
+     * Dimension the current player is in
+     */
+    public final Dimension dimension;
+
+    /**
+     * Player entities the client can see
+     */
+    public final ImmutableSet<Entity> nearbyPlayers;
+
+    public WorldSnapshot(Location location, ImmutableSet<Entity> nearbyPlayers) {
+        this.location = location;
+        this.dimension = location.dimension;
+        this.nearbyPlayers = nearbyPlayers;
+    }
+}
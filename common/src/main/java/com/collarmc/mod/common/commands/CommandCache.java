@@ -0,0 +1,122 @@
+package com.collarmc.mod.common.commands;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.ParseResults;
+import com.mojang.brigadier.tree.CommandNode;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Parse results and usage text of a {@link CommandDispatcher}, so running the same command again or showing help
+ * does not walk the command tree every time.
+ * Parsing resolves arguments such as groups and waypoints, so parse results are dropped whenever the generation
+ * changes. Usage is worked out when the cache is created, and again if {@link #commandsChanged()} is called after
+ * registering more commands. Commands are not restricted by source, so usage is the same for every source.
+ * @param <S> command source
+ */
+public final class CommandCache<S> {
+
+    private final CommandDispatcher<S> dispatcher;
+    private final LongSupplier generation;
+    private final Cache<Key<S>, Parsed<S>> parsed = CacheBuilder.newBuilder().maximumSize(64).build();
+    private final ConcurrentMap<CommandNode<S>, Map<CommandNode<S>, String>> smartUsage = new ConcurrentHashMap<>();
+    private volatile String[] allUsage;
+
+    /**
+     * @param dispatcher with its commands registered
+     * @param generation that changes whenever previously parsed arguments may no longer be valid
+     */
+    public CommandCache(CommandDispatcher<S> dispatcher, LongSupplier generation) {
+        this.dispatcher = dispatcher;
+        this.generation = generation;
+        commandsChanged();
+    }
+
+    /**
+     * @param input command to parse
+     * @param source of the command
+     * @return results of parsing the input, shared with earlier calls with the same input and source
+     */
+    public ParseResults<S> parse(String input, S source) {
+        long current = generation.getAsLong();
+        Key<S> key = new Key<>(input, source);
+        Parsed<S> cached = parsed.getIfPresent(key);
+        if (cached != null && cached.generation == current) {
+            return cached.results;
+        }
+        ParseResults<S> results = dispatcher.parse(input, source);
+        parsed.put(key, new Parsed<>(results, current));
+        return results;
+    }
+
+    /**
+     * @return usage of every command, as {@link CommandDispatcher#getAllUsage(CommandNode, Object, boolean)}
+     */
+    public String[] allUsage() {
+        return allUsage.clone();
+    }
+
+    /**
+     * @param node to start from
+     * @return usage of the nodes children, as {@link CommandDispatcher#getSmartUsage(CommandNode, Object)}
+     */
+    public Map<CommandNode<S>, String> smartUsage(CommandNode<S> node) {
+        return smartUsage.computeIfAbsent(node, key -> Collections.unmodifiableMap(dispatcher.getSmartUsage(key, null)));
+    }
+
+    /**
+     * Works out usage again and forgets every parse result, after commands were registered with the dispatcher
+     */
+    public void commandsChanged() {
+        parsed.invalidateAll();
+        smartUsage.clear();
+        allUsage = dispatcher.getAllUsage(dispatcher.getRoot(), null, true);
+        smartUsage(dispatcher.getRoot());
+    }
+
+    /**
+     * Forget every parse result
+     */
+    public void invalidateAll() {
+        parsed.invalidateAll();
+    }
+
+    private static final class Parsed<S> {
+        public final ParseResults<S> results;
+        public final long generation;
+
+        public Parsed(ParseResults<S> results, long generation) {
+            this.results = results;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Key<S> {
+        public final String input;
+        public final S source;
+
+        public Key(String input, S source) {
+            this.input = input;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key<?> key = (Key<?>) o;
+            return source == key.source && input.equals(key.input);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * input.hashCode() + System.identityHashCode(source);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
 import com.collarmc.api.friends.Friend;
 import com.collarmc.api.friends.Status;
 import com.collarmc.api.groups.Group;
@@ -17,10 +18,16 @@ import com.collarmc.api.location.Location;
 import com.collarmc.api.waypoints.Waypoint;
 import com.collarmc.client.api.groups.GroupInvitation;
 import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.events.ProfilingEventBus;
 import com.collarmc.mod.common.features.messaging.Messages;
+import com.collarmc.mod.common.plastic.CollarTextureProvider;
+import com.collarmc.mod.common.workers.WorkerPool;
 import com.collarmc.mod.common.commands.arguments.*;
 import com.collarmc.mod.common.commands.arguments.IdentityArgumentType.IdentityArgument;
 import com.collarmc.mod.common.commands.arguments.WaypointArgumentType.WaypointArgument;
+import com.collarmc.mod.common.commands.suggestions.SuggestionIndex;
+import com.collarmc.mod.common.commands.suggestions.SuggestionIndex.Match;
+import com.collarmc.mod.common.waypoints.IndexedWaypoint;
 import com.collarmc.plastic.Plastic;
 import com.collarmc.plastic.player.Player;
 import com.collarmc.plastic.ui.TextColor;
@@ -31,15 +38,22 @@ import java.util.stream.Collectors;
 
 import static com.mojang.brigadier.arguments.DoubleArgumentType.doubleArg;
 import static com.mojang.brigadier.arguments.DoubleArgumentType.getDouble;
+import static com.mojang.brigadier.arguments.IntegerArgumentType.getInteger;
+import static com.mojang.brigadier.arguments.IntegerArgumentType.integer;
 import static com.mojang.brigadier.arguments.StringArgumentType.getString;
+import static com.mojang.brigadier.arguments.StringArgumentType.greedyString;
 import static com.mojang.brigadier.arguments.StringArgumentType.string;
 import static com.collarmc.mod.common.commands.arguments.DimensionArgumentType.dimension;
-import static com.collarmc.mod.common.commands.arguments.GroupArgumentType.getGroup;
 import static com.collarmc.mod.common.commands.arguments.InvitationArgumentType.getInvitation;
 import static com.collarmc.mod.common.commands.arguments.PlayerArgumentType.getPlayer;
 
 public final class Commands<S> {
 
+    private static final int SEARCH_RESULTS = 10;
+    private static final int NEAREST_RESULTS = 5;
+    private static final int MAX_NEAREST_RESULTS = 50;
+    private static final int EVENT_RESULTS = 10;
+
     private final CollarService collarService;
     private final Messages messages;
     private final Plastic plastic;
@@ -52,7 +66,11 @@ public final class Commands<S> {
         this.prefixed = prefixed;
     }
 
-    public void register(CommandDispatcher<S> dispatcher) {
+    /**
+     * @param dispatcher to register commands with
+     * @return cache of parse results and usage for the dispatcher, as it is after registering
+     */
+    public CommandCache<S> register(CommandDispatcher<S> dispatcher) {
         registerServiceCommands(dispatcher);
         registerFriendCommands(dispatcher);
         registerLocationCommands(dispatcher);
@@ -60,6 +78,7 @@ public final class Commands<S> {
         registerGroupCommands(GroupType.PARTY, dispatcher);
         registerGroupCommands(GroupType.GROUP, dispatcher);
         registerChatCommands(dispatcher);
+        return new CommandCache<>(dispatcher, collarService.suggestions::generation);
     }
 
     private LiteralArgumentBuilder<S> prefixed(String name, LiteralArgumentBuilder<S> argumentBuilder) {
@@ -105,6 +124,61 @@ public final class Commands<S> {
             });
             return 1;
         }));
+
+        // collar debug workers
+        dispatcher.register(prefixed("debug", literal("workers")
+                .executes(context -> {
+                    collarService.workers.all().forEach(pool -> {
+                        WorkerPool.Stats stats = pool.stats();
+                        TextColor color = stats.isSaturated() ? TextColor.RED : TextColor.GRAY;
+                        plastic.display.displayMessage(plastic.display.newTextBuilder().add(stats.toString(), color));
+                    });
+                    return 1;
+                })));
+
+        // collar debug textures
+        dispatcher.register(prefixed("debug", literal("textures")
+                .executes(context -> {
+                    if (!(plastic.world.textureProvider() instanceof CollarTextureProvider)) {
+                        plastic.display.displayWarningMessage("Textures are not cached");
+                        return 1;
+                    }
+                    CollarTextureProvider textures = (CollarTextureProvider) plastic.world.textureProvider();
+                    plastic.display.displayInfoMessage("Textures: " + textures.stats());
+                    return 1;
+                })));
+
+        // collar debug integrations
+        dispatcher.register(prefixed("debug", literal("integrations")
+                .executes(context -> {
+                    collarService.integrations.waypointSyncs().stream()
+                            .filter(sync -> sync.sink.isLoaded())
+                            .forEach(sync -> plastic.display.displayInfoMessage(sync.sink.id() + ": " + sync.pendingWaypoints() + " waypoints waiting to sync"));
+                    return 1;
+                })));
+
+        // collar debug events
+        dispatcher.register(prefixed("debug", literal("events")
+                .executes(context -> {
+                    if (!(plastic.eventBus instanceof ProfilingEventBus)) {
+                        plastic.display.displayWarningMessage("Event profiling is not enabled, start with -Dcollar.events.profile=true");
+                        return 1;
+                    }
+                    ProfilingEventBus eventBus = (ProfilingEventBus) plastic.eventBus;
+                    plastic.display.displayInfoMessage("Slowest events");
+                    eventBus.eventStats().stream().limit(EVENT_RESULTS).forEach(stats -> {
+                        TextColor color = stats.maxNanos >= ProfilingEventBus.DEFAULT_SLOW_NANOS ? TextColor.RED : TextColor.GRAY;
+                        plastic.display.displayMessage(plastic.display.newTextBuilder().add(stats.toString(), color));
+                    });
+                    return 1;
+                })
+                .then(literal("reset").executes(context -> {
+                    if (plastic.eventBus instanceof ProfilingEventBus) {
+                        ((ProfilingEventBus) plastic.eventBus).reset();
+                        plastic.display.displayInfoMessage("Event profile reset");
+                    }
+                    return 1;
+                }))));
     }
 
     private void registerFriendCommands(CommandDispatcher<S> dispatcher) {
@@ -113,7 +187,7 @@ public final class Commands<S> {
                 .then(argument("name", identity())
                     .executes(context -> {
                         collarService.with(collar -> {
-                            IdentityArgument player = context.getArgument("name", IdentityArgument.class);
+                            IdentityArgument player = getIdentity(context, "name");
                             if (player.player != null) {
                                 collar.friends().addFriend(new MinecraftPlayer(player.player.id(), collar.player().minecraftPlayer.server, collar.player().minecraftPlayer.networkId));
                             } else if (player.profile != null) {
@@ -128,7 +202,7 @@ public final class Commands<S> {
                 .then(argument("name", identity())
                         .executes(context -> {
                             collarService.with(collar -> {
-                                IdentityArgument player = context.getArgument("name", IdentityArgument.class);
+                                IdentityArgument player = getIdentity(context, "name");
                                 if (player.player != null) {
                                     collar.friends().removeFriend(new MinecraftPlayer(player.player.id(), collar.player().minecraftPlayer.server, collar.player().minecraftPlayer.networkId));
                                 } else if (player.profile != null) {
@@ -254,7 +328,7 @@ public final class Commands<S> {
                                 .executes(context -> {
                                     collarService.with(collar -> {
                                         Group group = getGroup(context, "groupName");
-                                        IdentityArgument identity = context.getArgument("playerName", IdentityArgument.class);
+                                        IdentityArgument identity = getIdentity(context, "playerName");
                                         group.members.stream().filter(candidate -> candidate.profile.id.equals(identity.profile.id)).findFirst().ifPresent(theMember -> {
                                             collar.groups().removeMember(group, theMember);
                                         });
@@ -270,7 +344,7 @@ public final class Commands<S> {
                         Group group = getGroup(context, "groupName");
                         plastic.display.displayMessage("Members:");
                         group.members.forEach(member -> {
-                            Optional<Player> thePlayer = plastic.world.allPlayers().stream().filter(player -> member.player.minecraftPlayer.id.equals(player.id())).findFirst();
+                            Optional<Player> thePlayer = plastic.world.findPlayerById(member.player.minecraftPlayer.id);
                             String message;
                             if (thePlayer.isPresent()) {
                                 message = member.profile.name + " playing as " + member.player.minecraftPlayer.id + " (" + member.membershipRole.name() + ")";
@@ -346,7 +420,7 @@ public final class Commands<S> {
                 .then(argument("name", privateWaypoint())
                         .executes(context -> {
                             collarService.with(collar -> {
-                                WaypointArgument argument = context.getArgument("name", WaypointArgument.class);
+                                WaypointArgument argument = getWaypoint(context, "name");
                                 collar.location().removeWaypoint(argument.waypoint);
                             });
                             return 1;
@@ -382,6 +456,65 @@ public final class Commands<S> {
                             return 1;
                         }))));
 
+        // collar waypoint search [query]
+        dispatcher.register(prefixed("waypoint", literal("search")
+                .then(argument("query", greedyString())
+                        .executes(context -> {
+                            collarService.with(collar -> {
+                                String query = getString(context, "query");
+                                List<Match<WaypointArgument>> matches = new ArrayList<>();
+                                matches.addAll(collarService.suggestions.privateWaypoints.search(query, SEARCH_RESULTS, waypoint -> true));
+                                matches.addAll(collarService.suggestions.groupWaypoints.search(query, SEARCH_RESULTS, waypoint -> true));
+                                if (matches.isEmpty()) {
+                                    plastic.display.displayInfoMessage("No waypoints match " + query);
+                                } else {
+                                    matches.stream()
+                                            .sorted(Comparator.comparingInt((Match<WaypointArgument> match) -> match.score).reversed())
+                                            .limit(SEARCH_RESULTS)
+                                            .forEach(match -> plastic.display.displayInfoMessage(describe(match.value)));
+                                }
+                            });
+                            return 1;
+                        }))));
+
+        // collar waypoint nearest
+        dispatcher.register(prefixed("waypoint", literal("nearest")
+                .executes(context -> {
+                    collarService.with(collar -> nearestWaypoints(NEAREST_RESULTS));
+                    return 1;
+                })));
+
+        // collar waypoint nearest [count]
+        dispatcher.register(prefixed("waypoint", literal("nearest")
+                .then(argument("count", integer(1, MAX_NEAREST_RESULTS))
+                        .executes(context -> {
+                            collarService.with(collar -> nearestWaypoints(getInteger(context, "count")));
+                            return 1;
+                        }))));
+
+        // collar waypoint within [radius]
+        dispatcher.register(prefixed("waypoint", literal("within")
+                .then(argument("radius", doubleArg(0))
+                        .executes(context -> {
+                            collarService.with(collar -> {
+                                double radius = getDouble(context, "radius");
+                                Location location = collarService.worldSnapshot().location;
+                                if (Location.UNKNOWN.equals(location)) {
+                                    plastic.display.displayInfoMessage("Your location is unknown");
+                                    return;
+                                }
+                                List<IndexedWaypoint> waypoints = collarService.waypoints.within(location.dimension, location.x, location.y, location.z, radius);
+                                if (waypoints.isEmpty()) {
+                                    plastic.display.displayInfoMessage(String.format("No waypoints within %.0fm", radius));
+                                } else {
+                                    waypoints.stream()
+                                            .sorted(Comparator.comparingDouble(waypoint -> waypoint.distanceSquared(location.x, location.y, location.z)))
+                                            .forEach(waypoint -> plastic.display.displayInfoMessage(describe(new WaypointArgument(waypoint.waypoint, waypoint.group))));
+                                }
+                            });
+                            return 1;
+                        }))));
+
         // collar location waypoint add [name] [x] [y] [z] to [group]
         dispatcher.register(prefixed("waypoint", literal("add")
                 .then(argument("name", string())
@@ -414,7 +547,7 @@ public final class Commands<S> {
                                         .executes(context -> {
                                             collarService.with(collar -> {
                                                 Group group = getGroup(context, "group");
-                                                WaypointArgument argument = context.getArgument("waypoint", WaypointArgument.class);
+                                                WaypointArgument argument = getWaypoint(context, "waypoint");
                                                 if (!group.id.equals(argument.group.id)) {
                                                     collar.location().removeWaypoint(argument.group, argument.waypoint);
                                                 } else {
@@ -446,6 +579,43 @@ public final class Commands<S> {
                                                         }))))))));
     }
 
+    /**
+     * Shows the closest waypoints in the dimension the player is in
+     * @param count of waypoints to show
+     */
+    private void nearestWaypoints(int count) {
+        Location location = collarService.worldSnapshot().location;
+        if (Location.UNKNOWN.equals(location)) {
+            plastic.display.displayInfoMessage("Your location is unknown");
+            return;
+        }
+        List<IndexedWaypoint> waypoints = collarService.waypoints.nearest(location.dimension, location.x, location.y, location.z, count);
+        if (waypoints.isEmpty()) {
+            plastic.display.displayInfoMessage("There are no waypoints in this dimension");
+        } else {
+            waypoints.forEach(waypoint -> plastic.display.displayInfoMessage(describe(new WaypointArgument(waypoint.waypoint, waypoint.group))));
+        }
+    }
+
+    /**
+     * @return waypoint name, group and how far away it is
+     */
+    private String describe(WaypointArgument argument) {
+        Location player = collarService.worldSnapshot().location;
+        Location location = argument.waypoint.location;
+        String text = argument.waypoint.displayName();
+        if (argument.group != null) {
+            text += " in " + argument.group.name;
+        }
+        if (Location.UNKNOWN.equals(player) || !location.dimension.equals(player.dimension)) {
+            return text + " (" + location.dimension.name().toLowerCase() + ")";
+        }
+        double dx = location.x - player.x;
+        double dy = location.y - player.y;
+        double dz = location.z - player.z;
+        return text + String.format(" (%.0fm away)", Math.sqrt(dx * dx + dy * dy + dz * dz));
+    }
+
     private void registerChatCommands(CommandDispatcher<S> dispatcher) {
         // /msg player2 OwO
         dispatcher.register(literal("msg")
@@ -482,6 +652,36 @@ public final class Commands<S> {
         return LiteralArgumentBuilder.literal(name);
     }
 
+    /**
+     * Gets a group argument and ranks it higher in suggestions, as the command using it is running
+     */
+    private Group getGroup(CommandContext<S> context, String name) {
+        Group group = GroupArgumentType.getGroup(context, name);
+        collarService.suggestions.groups.used(group.name);
+        return group;
+    }
+
+    /**
+     * Gets an identity argument and ranks it higher in suggestions, as the command using it is running
+     */
+    private IdentityArgument getIdentity(CommandContext<S> context, String name) {
+        IdentityArgument identity = context.getArgument(name, IdentityArgument.class);
+        collarService.suggestions.identities.used(identity.name);
+        return identity;
+    }
+
+    /**
+     * Gets a waypoint argument and ranks it higher in suggestions, as the command using it is running
+     */
+    private WaypointArgument getWaypoint(CommandContext<S> context, String name) {
+        WaypointArgument waypoint = context.getArgument(name, WaypointArgument.class);
+        SuggestionIndex<UUID, WaypointArgument> waypoints = waypoint.group == null
+                ? collarService.suggestions.privateWaypoints
+                : collarService.suggestions.groupWaypoints;
+        waypoints.used(waypoint.waypoint.name);
+        return waypoint;
+    }
+
     private GroupArgumentType group(GroupType type) {
         return new GroupArgumentType(collarService, type);
     }
@@ -503,14 +703,14 @@ public final class Commands<S> {
     }
 
     private PlayerArgumentType player() {
-        return new PlayerArgumentType(plastic);
+        return new PlayerArgumentType(collarService, plastic);
     }
 
     private IdentityArgumentType identity() {
-        return new IdentityArgumentType(collarService, plastic);
+        return new IdentityArgumentType(collarService);
     }
 
     private GroupMemberArgumentType groupMember() {
-        return new GroupMemberArgumentType(collarService, plastic);
+        return new GroupMemberArgumentType(collarService);
     }
 }
@@ -9,15 +9,10 @@ import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.collarmc.api.groups.Group;
 import com.collarmc.api.groups.GroupType;
-import com.collarmc.client.Collar;
 import com.collarmc.plastic.brigadier.CommandTargetNotFoundException;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class GroupArgumentType implements ArgumentType<Group> {
 
@@ -39,38 +34,25 @@ public class GroupArgumentType implements ArgumentType<Group> {
             throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherParseException().create("Collar not connected");
         }
         String input = reader.readUnquotedString();
-        return groupList().stream()
-                .filter(group -> group.name.equals(input))
-                .findFirst().orElseThrow(() -> new CommandTargetNotFoundException("group '" + input +  "' not found"));
+        return collarService.suggestions.groups.find(input, this::matches)
+                .orElseThrow(() -> new CommandTargetNotFoundException("group '" + input +  "' not found"));
     }
 
     @Override
     public <S> CompletableFuture<Suggestions> listSuggestions(CommandContext<S> context, SuggestionsBuilder builder) {
-        groupList().stream()
-                .filter(group -> type == null || group.type.equals(type))
-                .filter(group -> group.name.toLowerCase().startsWith(builder.getRemaining().toLowerCase()))
-                .forEach(group -> builder.suggest(group.name));
-        return builder.buildFuture();
+        return collarService.suggestions.engine.suggest(this, builder, suggestions -> collarService.suggestions.groups.suggestRanked(suggestions, this::matches));
     }
 
     @Override
     public Collection<String> getExamples() {
-        return groupList().stream()
-                .limit(3).map(group -> group.name).collect(Collectors.toList());
+        return collarService.suggestions.groups.names(3, this::matches);
     }
 
-    List<Group> groupList() {
-        if (!collarService.getCollar().isPresent()) {
-            return Collections.emptyList();
-        }
-        Collar collar = collarService.getCollar().get();
-        if (collar.getState() != Collar.State.CONNECTED) {
-            return new ArrayList<>();
-        }
+    private boolean matches(Group group) {
         if (type == null) {
-            return collar.groups().matching(GroupType.GROUP, GroupType.PARTY);
+            return group.type == GroupType.GROUP || group.type == GroupType.PARTY;
         } else {
-            return collar.groups().matching(type);
+            return group.type == type;
         }
     }
 }
@@ -8,15 +8,11 @@ import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.collarmc.api.groups.GroupType;
-import com.collarmc.client.Collar;
 import com.collarmc.client.api.groups.GroupInvitation;
 import com.collarmc.plastic.brigadier.CommandTargetNotFoundException;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class InvitationArgumentType implements ArgumentType<GroupInvitation> {
 
@@ -38,40 +34,21 @@ public class InvitationArgumentType implements ArgumentType<GroupInvitation> {
             throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherParseException().create("Collar not connected");
         }
         String input = reader.readUnquotedString();
-        return collarService.getCollar().get().groups().invitations().stream()
-                .filter(invitation -> invitation.type.equals(type))
-                .filter(invitation -> invitation.name.equals(input))
-                .findFirst().orElseThrow(() -> new CommandTargetNotFoundException("invitation to group '" + input +  "' not found"));
+        return collarService.suggestions.invitations.find(input, this::matches)
+                .orElseThrow(() -> new CommandTargetNotFoundException("invitation to group '" + input +  "' not found"));
     }
 
     @Override
     public <S> CompletableFuture<Suggestions> listSuggestions(CommandContext<S> context, SuggestionsBuilder builder) {
-        if (!collarService.getCollar().isPresent()) {
-            return builder.buildFuture();
-        }
-        Collar collar = collarService.getCollar().get();
-        if (collar.getState() != Collar.State.CONNECTED) {
-            return builder.buildFuture();
-        }
-        collar.groups().invitations().stream().filter(invitation -> invitation.type.equals(type))
-                .filter(invitation -> invitation.name.toLowerCase().startsWith(builder.getRemaining().toLowerCase()))
-                .forEach(group -> builder.suggest(group.name));
-        return builder.buildFuture();
+        return collarService.suggestions.engine.suggest(this, builder, suggestions -> collarService.suggestions.invitations.suggest(suggestions, this::matches));
     }
 
     @Override
     public Collection<String> getExamples() {
-        if (!collarService.getCollar().isPresent()) {
-            return Collections.emptyList();
-        }
-        Collar collar = collarService.getCollar().get();
-        if (collar.getState() != Collar.State.CONNECTED) {
-            return new HashSet<>();
-        }
-        return collar.groups().invitations().stream()
-                .filter(invitation -> invitation.type.equals(type))
-                .limit(3)
-                .map(invitation -> invitation.name)
-                .collect(Collectors.toList());
+        return collarService.suggestions.invitations.names(3, this::matches);
+    }
+
+    private boolean matches(GroupInvitation invitation) {
+        return invitation.type.equals(type);
     }
 }
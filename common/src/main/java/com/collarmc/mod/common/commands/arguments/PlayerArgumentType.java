@@ -23,6 +23,7 @@
  */
 package com.collarmc.mod.common.commands.arguments;
 
+import com.collarmc.mod.common.CollarService;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -35,12 +36,13 @@ import com.collarmc.plastic.player.Player;
 
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class PlayerArgumentType implements ArgumentType<Player> {
+	private final CollarService collarService;
 	private final Plastic plastic;
 
-	public PlayerArgumentType(Plastic plastic) {
+	public PlayerArgumentType(CollarService collarService, Plastic plastic) {
+		this.collarService = collarService;
 		this.plastic = plastic;
 	}
 
@@ -58,23 +60,17 @@ public class PlayerArgumentType implements ArgumentType<Player> {
 	@Override
 	public Player parse(StringReader reader) throws CommandSyntaxException {
 		String input = reader.readUnquotedString();
-		return plastic.world.allPlayers().stream()
-				.filter(thePlayer -> thePlayer.name().equalsIgnoreCase(input))
-				.findFirst().orElseThrow(() -> new CommandTargetNotFoundException("player '" + input +  "' not found"));
+		return plastic.world.findPlayerByName(input)
+				.orElseThrow(() -> new CommandTargetNotFoundException("player '" + input +  "' not found"));
 	}
 
 	@Override
 	public <S> CompletableFuture<Suggestions> listSuggestions(CommandContext<S> context, SuggestionsBuilder builder) {
-		plastic.world.allPlayers().forEach(player -> {
-			if (player.name().toLowerCase().startsWith(builder.getRemaining().toLowerCase())) {
-				builder.suggest(player.name());
-			}
-		});
-		return builder.buildFuture();
+		return collarService.suggestions.engine.suggest(this, builder, collarService.suggestions.players::suggest);
 	}
 
 	@Override
 	public Collection<String> getExamples() {
-		return plastic.world.allPlayers().stream().map(Player::name).collect(Collectors.toList());
+		return collarService.suggestions.players.names(Integer.MAX_VALUE);
 	}
 }
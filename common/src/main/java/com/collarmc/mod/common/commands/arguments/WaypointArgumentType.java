@@ -1,7 +1,7 @@
 package com.collarmc.mod.common.commands.arguments;
 
 import com.collarmc.mod.common.CollarService;
-import com.google.common.collect.ImmutableList;
+import com.collarmc.mod.common.commands.suggestions.SuggestionIndex;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -10,14 +10,11 @@ import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.collarmc.api.groups.Group;
 import com.collarmc.api.waypoints.Waypoint;
-import com.collarmc.client.Collar;
 import com.collarmc.plastic.brigadier.CommandTargetNotFoundException;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class WaypointArgumentType implements ArgumentType<WaypointArgumentType.WaypointArgument> {
 
@@ -32,45 +29,22 @@ public class WaypointArgumentType implements ArgumentType<WaypointArgumentType.W
     @Override
     public WaypointArgument parse(StringReader reader) throws CommandSyntaxException {
         String input = reader.readUnquotedString();
-        return waypoints().stream().filter(waypoint -> input.equals(waypoint.waypoint.name))
-                .findFirst()
+        return waypoints().find(input)
                 .orElseThrow(() -> new CommandTargetNotFoundException("waypoint '" + input +  "' not found"));
     }
 
     @Override
     public <S> CompletableFuture<Suggestions> listSuggestions(CommandContext<S> context, SuggestionsBuilder builder) {
-        waypoints().stream()
-                .filter(waypoint -> waypoint.waypoint.name.toLowerCase().startsWith(builder.getRemaining().toLowerCase()))
-                .forEach(waypoint -> builder.suggest(waypoint.waypoint.name));
-        return builder.buildFuture();
+        return collarService.suggestions.engine.suggest(this, builder, suggestions -> waypoints().suggestRanked(suggestions, waypoint -> true));
     }
 
     @Override
     public Collection<String> getExamples() {
-        return waypoints().stream().limit(3).map(waypoint -> waypoint.waypoint.name).collect(Collectors.toList());
+        return waypoints().names(3);
     }
 
-    private List<WaypointArgument> waypoints() {
-        if (!collarService.getCollar().isPresent()) {
-            return ImmutableList.of();
-        }
-        Collar collar = collarService.getCollar().get();
-        if (collar.getState() != Collar.State.CONNECTED) {
-            return new ArrayList<>();
-        }
-        if (privateWaypoints) {
-            return collar.location().privateWaypoints().stream()
-                    .map(waypoint -> new WaypointArgument(waypoint, null))
-                    .collect(Collectors.toList());
-        } else {
-            List<WaypointArgument> waypointArguments = new ArrayList<>();
-            for (Group group : collar.groups().all()) {
-                waypointArguments.addAll(collar.location().groupWaypoints(group).stream()
-                        .map(waypoint -> new WaypointArgument(waypoint, group))
-                        .collect(Collectors.toList()));
-            }
-            return waypointArguments;
-        }
+    private SuggestionIndex<UUID, WaypointArgument> waypoints() {
+        return privateWaypoints ? collarService.suggestions.privateWaypoints : collarService.suggestions.groupWaypoints;
     }
 
     public static class WaypointArgument {
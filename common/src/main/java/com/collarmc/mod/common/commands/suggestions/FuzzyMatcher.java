@@ -0,0 +1,161 @@
+package com.collarmc.mod.common.commands.suggestions;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Scores how well a name matches what the user typed. Both are expected to be lower case.
+ * In order of preference a name matches exactly, by prefix, by substring, as a subsequence or within a small
+ * number of typos.
+ */
+public final class FuzzyMatcher {
+
+    /**
+     * Score of names that do not match at all
+     */
+    public static final int NO_MATCH = Integer.MIN_VALUE;
+
+    /**
+     * Length of the n-grams names are indexed by
+     */
+    public static final int GRAM = 3;
+
+    private static final int EXACT = 1000;
+    private static final int PREFIX = 800;
+    private static final int SUBSTRING = 600;
+    private static final int SUBSEQUENCE = 300;
+    private static final int TYPO = 200;
+
+    private FuzzyMatcher() {}
+
+    /**
+     * @param query typed by the user
+     * @param name to score
+     * @return score, higher is better, or {@link #NO_MATCH}
+     */
+    public static int score(String query, String name) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        if (name.equals(query)) {
+            return EXACT;
+        }
+        if (name.startsWith(query)) {
+            return PREFIX - Math.min(100, name.length() - query.length());
+        }
+        int index = name.indexOf(query);
+        if (index > 0) {
+            return SUBSTRING - Math.min(100, index);
+        }
+        int subsequence = subsequence(query, name);
+        if (subsequence != NO_MATCH) {
+            return SUBSEQUENCE + subsequence;
+        }
+        int allowed = allowedTypos(query);
+        if (allowed > 0) {
+            int typos = typos(query, name, allowed);
+            if (typos <= allowed) {
+                return TYPO - typos * 50;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @param name to index
+     * @return n-grams of the name, or the name itself if it is shorter than an n-gram
+     */
+    public static Set<String> grams(String name) {
+        Set<String> grams = new HashSet<>();
+        if (name.length() < GRAM) {
+            grams.add(name);
+        } else {
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                grams.add(name.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Rewards characters matched one after the other and at the start of words
+     * @return score that keeps subsequences between typo and substring matches, or {@link #NO_MATCH} if the query is
+     * not a subsequence
+     */
+    private static int subsequence(String query, String name) {
+        int score = 0;
+        int last = -2;
+        int j = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            while (j < name.length() && name.charAt(j) != c) {
+                j++;
+            }
+            if (j == name.length()) {
+                return NO_MATCH;
+            }
+            if (j == last + 1) {
+                score += 15;
+            }
+            if (j == 0 || !Character.isLetterOrDigit(name.charAt(j - 1))) {
+                score += 10;
+            }
+            score += 5;
+            last = j++;
+        }
+        // Penalise matches spread over a long name
+        return Math.max(-SUBSEQUENCE + TYPO + 1, Math.min(TYPO - 1, score - (name.length() - query.length())));
+    }
+
+    private static int allowedTypos(String query) {
+        if (query.length() >= 8) {
+            return 2;
+        }
+        return query.length() >= 4 ? 1 : 0;
+    }
+
+    /**
+     * Optimal string alignment distance between the query and the start of the name, so typing part of a name with
+     * a typo still matches
+     * @return distance, or more than allowed
+     */
+    private static int typos(String query, String name, int allowed) {
+        int best = allowed + 1;
+        for (int length = query.length() - allowed; length <= query.length() + allowed; length++) {
+            if (length > 0 && length <= name.length()) {
+                best = Math.min(best, distance(query, name, length, allowed));
+            }
+        }
+        return best;
+    }
+
+    private static int distance(String a, String b, int bLength, int allowed) {
+        int[] previous2 = new int[bLength + 1];
+        int[] previous = new int[bLength + 1];
+        int[] current = new int[bLength + 1];
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > allowed) {
+                return rowMin;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[bLength];
+    }
+}
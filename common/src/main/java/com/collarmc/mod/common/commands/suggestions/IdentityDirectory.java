@@ -0,0 +1,283 @@
+package com.collarmc.mod.common.commands.suggestions;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.profiles.PublicProfile;
+import com.collarmc.client.Collar;
+import com.collarmc.client.api.friends.events.FriendAddedEvent;
+import com.collarmc.client.api.friends.events.FriendChangedEvent;
+import com.collarmc.client.api.friends.events.FriendRemovedEvent;
+import com.collarmc.client.api.groups.events.GroupCreatedEvent;
+import com.collarmc.client.api.groups.events.GroupJoinedEvent;
+import com.collarmc.client.api.groups.events.GroupLeftEvent;
+import com.collarmc.client.events.CollarStateChangedEvent;
+import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.commands.arguments.IdentityArgumentType.IdentityArgument;
+import com.collarmc.plastic.Plastic;
+import com.collarmc.plastic.events.client.OnTickEvent;
+import com.collarmc.plastic.player.Player;
+import com.collarmc.pounce.EventBus;
+import com.collarmc.pounce.Preference;
+import com.collarmc.pounce.Subscribe;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everyone the current player can refer to by name: players in the world, friends and members of their groups.
+ * Each name resolves to one identity. A player in the world wins over a friend, and a friend over a group member.
+ * The directory is updated in place as players join and leave, friends change and groups are joined and left,
+ * and is empty while Collar is not connected.
+ */
+public final class IdentityDirectory {
+
+    private final Plastic plastic;
+    private final CollarService collarService;
+    private final AtomicLong generation;
+
+    private final Map<UUID, Player> players = new HashMap<>();
+    private final Map<String, Player> playersByName = new HashMap<>();
+    private final Map<UUID, PublicProfile> friends = new HashMap<>();
+    private final Map<String, PublicProfile> friendsByName = new HashMap<>();
+    private final Map<UUID, Set<PublicProfile>> groupMembers = new HashMap<>();
+    private final Map<String, PublicProfile> membersByName = new HashMap<>();
+    private final Multiset<String> memberNames = HashMultiset.create();
+
+    private final Map<String, IdentityArgument> byName = new ConcurrentHashMap<>();
+    private final SuggestionIndex<String, IdentityArgument> index = new SuggestionIndex<>();
+
+    private volatile boolean connected;
+    private volatile List<Player> indexedPlayers;
+
+    /**
+     * @param generation incremented whenever an identity changes
+     */
+    public IdentityDirectory(Plastic plastic, EventBus eventBus, CollarService collarService, AtomicLong generation) {
+        this.plastic = plastic;
+        this.collarService = collarService;
+        this.generation = generation;
+        eventBus.subscribe(this);
+    }
+
+    /**
+     * @param name of identity, matching case
+     * @return identity
+     */
+    public Optional<IdentityArgument> find(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    /**
+     * @param builder to add every name starting with the remaining input to, ignoring case
+     */
+    public void suggest(SuggestionsBuilder builder) {
+        index.suggest(builder);
+    }
+
+    /**
+     * @param builder to add the best fuzzy matches of the remaining input to
+     */
+    public void suggestRanked(SuggestionsBuilder builder) {
+        index.suggestRanked(builder, identity -> true);
+    }
+
+    /**
+     * Ranks the name higher in suggestions for a while
+     * @param name that was used
+     */
+    public void used(String name) {
+        index.used(name);
+    }
+
+    /**
+     * @param limit maximum number of names
+     * @return names in order
+     */
+    public List<String> names(int limit) {
+        return index.names(limit);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onStateChanged(CollarStateChangedEvent event) {
+        clear();
+        connected = event.state == Collar.State.CONNECTED;
+        if (connected) {
+            event.collar.friends().list().forEach(friend -> putFriend(friend.profile));
+            event.collar.groups().all().forEach(this::putGroup);
+            indexedPlayers = null;
+            updatePlayers(plastic.world.allPlayers());
+        }
+    }
+
+    /**
+     * Diffs the world players against the last tick when a player joined or left
+     */
+    @Subscribe(Preference.CALLER)
+    public void onTick(OnTickEvent event) {
+        List<Player> current = plastic.world.allPlayers();
+        if (connected && current != indexedPlayers) {
+            synchronized (this) {
+                if (connected) {
+                    updatePlayers(current);
+                }
+            }
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onFriendAdded(FriendAddedEvent event) {
+        putFriend(event.friend.profile);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onFriendChanged(FriendChangedEvent event) {
+        putFriend(event.friend.profile);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onFriendRemoved(FriendRemovedEvent event) {
+        removeFriend(event.friend.profile.id);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onGroupCreated(GroupCreatedEvent event) {
+        syncGroup(event.group);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onGroupJoined(GroupJoinedEvent event) {
+        syncGroup(event.group);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onGroupLeft(GroupLeftEvent event) {
+        syncGroup(event.group);
+    }
+
+    private void updatePlayers(List<Player> current) {
+        if (current == indexedPlayers) {
+            return;
+        }
+        indexedPlayers = current;
+        Map<UUID, Player> currentById = new HashMap<>();
+        current.forEach(player -> currentById.put(player.id(), player));
+        for (Player player : new ArrayList<>(players.values())) {
+            if (!currentById.containsKey(player.id())) {
+                players.remove(player.id());
+                playersByName.remove(player.name());
+                refresh(player.name());
+            }
+        }
+        currentById.forEach((id, player) -> {
+            Player previous = players.put(id, player);
+            if (previous != player) {
+                if (previous != null) {
+                    playersByName.remove(previous.name());
+                    refresh(previous.name());
+                }
+                playersByName.put(player.name(), player);
+                refresh(player.name());
+            }
+        });
+    }
+
+    private void putFriend(PublicProfile profile) {
+        if (!connected) {
+            return;
+        }
+        PublicProfile previous = friends.put(profile.id, profile);
+        if (previous != null && !previous.name.equals(profile.name)) {
+            friendsByName.remove(previous.name);
+            refresh(previous.name);
+        }
+        friendsByName.put(profile.name, profile);
+        refresh(profile.name);
+    }
+
+    private void removeFriend(UUID id) {
+        PublicProfile previous = friends.remove(id);
+        if (previous != null) {
+            friendsByName.remove(previous.name);
+            refresh(previous.name);
+        }
+    }
+
+    /**
+     * Group events carry the group as the server sent it, but the current membership is read back from Collar, as
+     * leaving a group and another member leaving it look the same
+     */
+    private void syncGroup(Group group) {
+        if (!connected) {
+            return;
+        }
+        Optional<Group> current = collarService.getCollar()
+                .flatMap(collar -> collar.groups().all().stream().filter(candidate -> candidate.id.equals(group.id)).findFirst());
+        removeGroup(group.id);
+        current.ifPresent(this::putGroup);
+    }
+
+    private void putGroup(Group group) {
+        Set<PublicProfile> profiles = new HashSet<>();
+        group.members.forEach(member -> profiles.add(member.profile));
+        groupMembers.put(group.id, profiles);
+        for (PublicProfile profile : profiles) {
+            memberNames.add(profile.name);
+            membersByName.putIfAbsent(profile.name, profile);
+            refresh(profile.name);
+        }
+    }
+
+    private void removeGroup(UUID groupId) {
+        Set<PublicProfile> profiles = groupMembers.remove(groupId);
+        if (profiles == null) {
+            return;
+        }
+        for (PublicProfile profile : profiles) {
+            if (memberNames.remove(profile.name, 1) == 1) {
+                membersByName.remove(profile.name);
+            }
+            refresh(profile.name);
+        }
+    }
+
+    /**
+     * Publishes the identity that wins for the name, if any
+     */
+    private void refresh(String name) {
+        IdentityArgument identity;
+        if (playersByName.containsKey(name)) {
+            identity = new IdentityArgument(playersByName.get(name), null);
+        } else if (friendsByName.containsKey(name)) {
+            identity = new IdentityArgument(null, friendsByName.get(name));
+        } else if (membersByName.containsKey(name)) {
+            identity = new IdentityArgument(null, membersByName.get(name));
+        } else {
+            identity = null;
+        }
+        if (identity == null) {
+            byName.remove(name);
+            index.remove(name);
+        } else {
+            byName.put(name, identity);
+            index.put(name, identity, name);
+        }
+        generation.incrementAndGet();
+    }
+
+    private void clear() {
+        players.clear();
+        playersByName.clear();
+        friends.clear();
+        friendsByName.clear();
+        groupMembers.clear();
+        membersByName.clear();
+        memberNames.clear();
+        byName.clear();
+        index.clear();
+        indexedPlayers = null;
+        generation.incrementAndGet();
+    }
+}
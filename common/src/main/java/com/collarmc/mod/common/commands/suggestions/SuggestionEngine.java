@@ -0,0 +1,116 @@
+package com.collarmc.mod.common.commands.suggestions;
+
+import com.collarmc.mod.common.workers.WorkerPool;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Computes command suggestions on a worker so the client thread never waits for them.
+ * Each argument has at most one request in flight, and starting a request for new input cancels the previous one.
+ * Completed suggestions are reused for the same input for a short while, e.g. when tab is pressed repeatedly.
+ */
+public final class SuggestionEngine {
+
+    private final WorkerPool workers;
+    private final ConcurrentMap<Object, Request> inFlight = new ConcurrentHashMap<>();
+    private final Cache<Key, Suggestions> recent = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.SECONDS)
+            .maximumSize(256)
+            .build();
+
+    /**
+     * @param workers to compute suggestions on
+     */
+    public SuggestionEngine(WorkerPool workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * @param argument requesting suggestions, only one request per argument is kept in flight
+     * @param builder holding the input to complete
+     * @param suggester adds the suggestions to the builder, called on a worker
+     * @return suggestions, completed on a worker or immediately when cached
+     */
+    public CompletableFuture<Suggestions> suggest(Object argument, SuggestionsBuilder builder, Consumer<SuggestionsBuilder> suggester) {
+        Key key = new Key(argument, builder.getInput(), builder.getStart());
+        Suggestions cached = recent.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Request previous = inFlight.get(argument);
+        if (previous != null && previous.key.equals(key) && !previous.future.isCancelled()) {
+            return previous.future;
+        }
+        Request request = new Request(key);
+        previous = inFlight.put(argument, request);
+        if (previous != null) {
+            previous.future.cancel(false);
+        }
+        workers.supply(() -> {
+            if (request.future.isCancelled()) {
+                return null;
+            }
+            suggester.accept(builder);
+            return builder.build();
+        }).whenComplete((suggestions, e) -> {
+            inFlight.remove(argument, request);
+            if (suggestions != null) {
+                recent.put(key, suggestions);
+                request.future.complete(suggestions);
+            } else if (e instanceof CancellationException || e instanceof RejectedExecutionException) {
+                // The pool dropped or refused the request, so complete it empty rather than leave it waiting forever
+                request.future.complete(builder.build());
+            } else if (e != null) {
+                request.future.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        return request.future;
+    }
+
+    /**
+     * Forget cached suggestions, e.g. when the candidates changed
+     */
+    public void invalidateAll() {
+        recent.invalidateAll();
+    }
+
+    private static final class Request {
+        public final Key key;
+        public final CompletableFuture<Suggestions> future = new CompletableFuture<>();
+
+        public Request(Key key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+        public final Object argument;
+        public final String input;
+        public final int start;
+
+        public Key(Object argument, String input, int start) {
+            this.argument = argument;
+            this.input = input;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return start == key.start && argument == key.argument && input.equals(key.input);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(argument), input, start);
+        }
+    }
+}
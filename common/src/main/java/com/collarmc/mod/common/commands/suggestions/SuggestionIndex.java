@@ -0,0 +1,427 @@
+package com.collarmc.mod.common.commands.suggestions;
+
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Names of command arguments kept sorted by their lower case form, so a prefix is found with a binary search
+ * instead of scanning every candidate on each key press.
+ * Entries are added and removed as Collar reports changes. When a change can not be applied directly the index is
+ * invalidated and reloaded from its source the next time it is queried.
+ * Names can also be searched with {@link FuzzyMatcher}, ranked by score and by how recently they were used, using an
+ * n-gram index that is built the first time a large index is searched.
+ * @param <K> key an entry is added and removed by
+ * @param <V> value an entry resolves to
+ */
+public final class SuggestionIndex<K, V> {
+
+    /**
+     * Indexes up to this size are scanned in full rather than narrowed down by n-grams
+     */
+    private static final int FULL_SCAN = 1024;
+
+    /**
+     * Searches stop and return the best matches so far after this long
+     */
+    private static final long SEARCH_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * Score added to a name that was just used, falling to nothing over {@link #RECENT_NANOS}
+     */
+    private static final int RECENT_BONUS = 150;
+    private static final long RECENT_NANOS = TimeUnit.MINUTES.toNanos(30);
+    private static final int MAX_RECENT = 1024;
+
+    /**
+     * Most names offered by {@link #suggestRanked(SuggestionsBuilder, Predicate)}
+     */
+    private static final int RANKED_SUGGESTIONS = 20;
+
+    private final Consumer<SuggestionIndex<K, V>> source;
+    private final Map<K, List<Entry<V>>> entries = new HashMap<>();
+    private volatile boolean stale;
+    private volatile Entry<V>[] sorted;
+    private volatile Grams grams;
+    private final ConcurrentMap<String, Long> lastUsed = new ConcurrentHashMap<>();
+
+    /**
+     * @param source that fills an empty index using {@link #put(Object, Object, String...)}
+     */
+    public SuggestionIndex(Consumer<SuggestionIndex<K, V>> source) {
+        this.source = source;
+        this.stale = true;
+    }
+
+    /**
+     * Index that is only changed with {@link #put(Object, Object, String...)} and {@link #remove(Object)}
+     */
+    public SuggestionIndex() {
+        this.source = index -> {};
+        this.stale = false;
+    }
+
+    /**
+     * Adds or replaces the names of a key
+     * @param key of entry
+     * @param value the names resolve to
+     * @param names to suggest, nulls are ignored
+     */
+    public synchronized void put(K key, V value, String... names) {
+        List<Entry<V>> keyEntries = new ArrayList<>(names.length);
+        for (String name : names) {
+            if (name != null) {
+                keyEntries.add(new Entry<>(name, value));
+            }
+        }
+        entries.put(key, keyEntries);
+        sorted = null;
+    }
+
+    /**
+     * @param key to remove
+     */
+    public synchronized void remove(K key) {
+        if (entries.remove(key) != null) {
+            sorted = null;
+        }
+    }
+
+    /**
+     * Empties the index without reloading it until {@link #invalidate()} is called
+     */
+    public synchronized void clear() {
+        entries.clear();
+        stale = false;
+        sorted = null;
+    }
+
+    /**
+     * Reload the index from its source when next queried
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Suggests every name starting with the remaining input, ignoring case
+     * @param builder to add suggestions to
+     * @param filter values to suggest
+     */
+    public void suggest(SuggestionsBuilder builder, Predicate<V> filter) {
+        Entry<V>[] sorted = snapshot();
+        String prefix = fold(builder.getRemaining());
+        for (int i = lowerBound(sorted, prefix); i < sorted.length && sorted[i].folded.startsWith(prefix); i++) {
+            if (filter.test(sorted[i].value)) {
+                builder.suggest(sorted[i].name);
+            }
+        }
+    }
+
+    /**
+     * @param builder to add suggestions to
+     */
+    public void suggest(SuggestionsBuilder builder) {
+        suggest(builder, value -> true);
+    }
+
+    /**
+     * Suggests the best fuzzy matches of the remaining input, or every name when nothing was typed yet
+     * @param builder to add suggestions to
+     * @param filter values to suggest
+     */
+    public void suggestRanked(SuggestionsBuilder builder, Predicate<V> filter) {
+        if (builder.getRemaining().isEmpty()) {
+            suggest(builder, filter);
+        } else {
+            search(builder.getRemaining(), RANKED_SUGGESTIONS, filter).forEach(match -> builder.suggest(match.name));
+        }
+    }
+
+    /**
+     * Finds the names that best match the query. Gives up after a fixed time and returns the best matches found so
+     * far, trying names that start with the query first.
+     * @param query to match, ignoring case
+     * @param limit maximum number of matches
+     * @param filter values to consider
+     * @return matches, best first
+     */
+    public List<Match<V>> search(String query, int limit, Predicate<V> filter) {
+        Entry<V>[] sorted = snapshot();
+        String folded = fold(query);
+        long now = System.nanoTime();
+        long deadline = now + SEARCH_BUDGET_NANOS;
+        int[] candidates = candidates(sorted, folded);
+        PriorityQueue<Match<V>> best = new PriorityQueue<>(Match.WORST_FIRST);
+        for (int i = 0; i < candidates.length; i++) {
+            if ((i & 63) == 63 && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            Entry<V> entry = sorted[candidates[i]];
+            if (!filter.test(entry.value)) {
+                continue;
+            }
+            int score = FuzzyMatcher.score(folded, entry.folded);
+            if (score == FuzzyMatcher.NO_MATCH) {
+                continue;
+            }
+            best.add(new Match<>(entry.name, entry.value, score + recency(entry.name, now)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Match<V>> matches = new ArrayList<>(best);
+        matches.sort(Match.WORST_FIRST.reversed());
+        return matches;
+    }
+
+    /**
+     * Ranks a name higher in searches for a while
+     * @param name that was used
+     */
+    public void used(String name) {
+        if (lastUsed.size() >= MAX_RECENT) {
+            lastUsed.clear();
+        }
+        lastUsed.put(name, System.nanoTime());
+    }
+
+    /**
+     * @param name to find, matching case
+     * @param filter values to consider
+     * @return value of the first entry with exactly this name
+     */
+    public Optional<V> find(String name, Predicate<V> filter) {
+        Entry<V>[] sorted = snapshot();
+        String folded = fold(name);
+        for (int i = lowerBound(sorted, folded); i < sorted.length && sorted[i].folded.equals(folded); i++) {
+            if (sorted[i].name.equals(name) && filter.test(sorted[i].value)) {
+                return Optional.of(sorted[i].value);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param name to find, matching case
+     * @return value of the first entry with exactly this name
+     */
+    public Optional<V> find(String name) {
+        return find(name, value -> true);
+    }
+
+    /**
+     * @param limit maximum number of names
+     * @param filter values to include
+     * @return names in order
+     */
+    public List<String> names(int limit, Predicate<V> filter) {
+        Entry<V>[] sorted = snapshot();
+        List<String> names = new ArrayList<>(Math.min(limit, sorted.length));
+        for (int i = 0; i < sorted.length && names.size() < limit; i++) {
+            if (filter.test(sorted[i].value)) {
+                names.add(sorted[i].name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @param limit maximum number of names
+     * @return names in order
+     */
+    public List<String> names(int limit) {
+        return names(limit, value -> true);
+    }
+
+    /**
+     * @return number of names in the index
+     */
+    public int size() {
+        return snapshot().length;
+    }
+
+    private Entry<V>[] snapshot() {
+        Entry<V>[] sorted = this.sorted;
+        if (sorted != null && !stale) {
+            return sorted;
+        }
+        synchronized (this) {
+            if (stale) {
+                stale = false;
+                entries.clear();
+                source.accept(this);
+                this.sorted = null;
+            }
+            if (this.sorted == null) {
+                this.sorted = sort();
+            }
+            return this.sorted;
+        }
+    }
+
+    /**
+     * @return positions of the entries worth scoring, starting with those that have the query as a prefix
+     */
+    private int[] candidates(Entry<V>[] sorted, String query) {
+        int start = lowerBound(sorted, query);
+        int end = start;
+        while (end < sorted.length && sorted[end].folded.startsWith(query)) {
+            end++;
+        }
+        int[] candidates;
+        int count = 0;
+        if (sorted.length <= FULL_SCAN || query.length() < FuzzyMatcher.GRAM) {
+            candidates = new int[sorted.length];
+            for (int i = start; i < end; i++) {
+                candidates[count++] = i;
+            }
+            for (int i = 0; i < sorted.length; i++) {
+                if (i < start || i >= end) {
+                    candidates[count++] = i;
+                }
+            }
+            return candidates;
+        }
+        Grams grams = this.grams;
+        if (grams == null || grams.sorted != sorted) {
+            grams = new Grams(sorted);
+            this.grams = grams;
+        }
+        // Count the n-grams each entry shares with the query, so the closest are scored first. N-grams found in most
+        // names do not narrow anything down and are skipped
+        int common = Math.max(FULL_SCAN, sorted.length / 8);
+        int[] shared = new int[sorted.length];
+        int[] touched = new int[sorted.length];
+        int touchedCount = 0;
+        int maxShared = 0;
+        for (String gram : FuzzyMatcher.grams(query)) {
+            int[] positions = grams.postings.get(gram);
+            if (positions == null || positions.length > common) {
+                continue;
+            }
+            for (int i : positions) {
+                if (i >= start && i < end) {
+                    continue;
+                }
+                if (shared[i]++ == 0) {
+                    touched[touchedCount++] = i;
+                }
+                maxShared = Math.max(maxShared, shared[i]);
+            }
+        }
+        candidates = new int[end - start + touchedCount];
+        for (int i = start; i < end; i++) {
+            candidates[count++] = i;
+        }
+        for (int n = maxShared; n > 0; n--) {
+            for (int t = 0; t < touchedCount; t++) {
+                if (shared[touched[t]] == n) {
+                    candidates[count++] = touched[t];
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private int recency(String name, long now) {
+        Long used = lastUsed.get(name);
+        if (used == null || now - used >= RECENT_NANOS) {
+            return 0;
+        }
+        return (int) (RECENT_BONUS * (RECENT_NANOS - (now - used)) / RECENT_NANOS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<V>[] sort() {
+        List<Entry<V>> all = new ArrayList<>();
+        entries.values().forEach(all::addAll);
+        Entry<V>[] sorted = all.toArray(new Entry[0]);
+        Arrays.sort(sorted, Comparator.comparing((Entry<V> entry) -> entry.folded).thenComparing(entry -> entry.name));
+        return sorted;
+    }
+
+    /**
+     * @return index of the first entry not before the prefix
+     */
+    private static int lowerBound(Entry<?>[] sorted, String prefix) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].folded.compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A name found by {@link #search(String, int, Predicate)}
+     * @param <V> value the name resolves to
+     */
+    public static final class Match<V> {
+        private static final Comparator<Match<?>> WORST_FIRST = Comparator.<Match<?>>comparingInt(match -> match.score)
+                .thenComparing((Match<?> match) -> match.name, Comparator.reverseOrder());
+
+        public final String name;
+        public final V value;
+        public final int score;
+
+        public Match(String name, V value, int score) {
+            this.name = name;
+            this.value = value;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Positions of the entries containing each n-gram
+     */
+    private static final class Grams {
+        public final Entry<?>[] sorted;
+        public final Map<String, int[]> postings = new HashMap<>();
+
+        public Grams(Entry<?>[] sorted) {
+            this.sorted = sorted;
+            Map<String, int[]> counts = new HashMap<>();
+            List<Set<String>> entryGrams = new ArrayList<>(sorted.length);
+            for (Entry<?> entry : sorted) {
+                Set<String> grams = FuzzyMatcher.grams(entry.folded);
+                grams.forEach(gram -> counts.computeIfAbsent(gram, key -> new int[1])[0]++);
+                entryGrams.add(grams);
+            }
+            counts.forEach((gram, count) -> postings.put(gram, new int[count[0]]));
+            for (int i = 0; i < sorted.length; i++) {
+                for (String gram : entryGrams.get(i)) {
+                    int[] count = counts.get(gram);
+                    int[] positions = postings.get(gram);
+                    positions[positions.length - count[0]--] = i;
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        public final String folded;
+        public final String name;
+        public final V value;
+
+        public Entry(String name, V value) {
+            this.folded = fold(name);
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
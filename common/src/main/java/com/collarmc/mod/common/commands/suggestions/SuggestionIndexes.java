@@ -0,0 +1,189 @@
+package com.collarmc.mod.common.commands.suggestions;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.groups.Member;
+import com.collarmc.client.Collar;
+import com.collarmc.client.api.groups.GroupInvitation;
+import com.collarmc.client.api.groups.events.GroupCreatedEvent;
+import com.collarmc.client.api.groups.events.GroupInvitationEvent;
+import com.collarmc.client.api.groups.events.GroupJoinedEvent;
+import com.collarmc.client.api.groups.events.GroupLeftEvent;
+import com.collarmc.client.api.location.events.WaypointCreatedEvent;
+import com.collarmc.client.api.location.events.WaypointRemovedEvent;
+import com.collarmc.client.events.CollarStateChangedEvent;
+import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.commands.arguments.WaypointArgumentType.WaypointArgument;
+import com.collarmc.plastic.Plastic;
+import com.collarmc.plastic.events.client.OnTickEvent;
+import com.collarmc.plastic.player.Player;
+import com.collarmc.pounce.EventBus;
+import com.collarmc.pounce.Preference;
+import com.collarmc.pounce.Subscribe;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Suggestion indexes used by the command argument types, kept up to date from Collar and world events.
+ * Waypoints are added and removed as they are created. Groups, members and invitations are reloaded after the event
+ * that changed them, as those events do not say which members changed. Identities are kept by {@link IdentityDirectory}.
+ */
+public final class SuggestionIndexes {
+
+    private final Plastic plastic;
+    private final CollarService collarService;
+    private final AtomicLong generation = new AtomicLong();
+    private List<Player> indexedPlayers;
+
+    /**
+     * Computes suggestions from these indexes off the client thread
+     */
+    public final SuggestionEngine engine;
+
+    /**
+     * Players in the world
+     */
+    public final SuggestionIndex<UUID, Player> players;
+
+    /**
+     * Private waypoints of the current player
+     */
+    public final SuggestionIndex<UUID, WaypointArgument> privateWaypoints;
+
+    /**
+     * Waypoints shared with groups the current player is a member of
+     */
+    public final SuggestionIndex<UUID, WaypointArgument> groupWaypoints;
+
+    /**
+     * Groups the current player is a member of
+     */
+    public final SuggestionIndex<UUID, Group> groups;
+
+    /**
+     * Members of every group, by Collar profile name and by Minecraft player name
+     */
+    public final SuggestionIndex<UUID, Member> members;
+
+    /**
+     * Pending group invitations
+     */
+    public final SuggestionIndex<GroupInvitation, GroupInvitation> invitations;
+
+    /**
+     * Players, friends and group members, by name
+     */
+    public final IdentityDirectory identities;
+
+    public SuggestionIndexes(Plastic plastic, EventBus eventBus, CollarService collarService) {
+        this.plastic = plastic;
+        this.collarService = collarService;
+        this.engine = new SuggestionEngine(collarService.workers.background);
+        this.players = new SuggestionIndex<>(index -> plastic.world.allPlayers().forEach(player -> index.put(player.id(), player, player.name())));
+        this.privateWaypoints = new SuggestionIndex<>(index -> connectedCollar().ifPresent(collar -> collar.location().privateWaypoints()
+                .forEach(waypoint -> index.put(waypoint.id, new WaypointArgument(waypoint, null), waypoint.name))));
+        this.groupWaypoints = new SuggestionIndex<>(index -> connectedCollar().ifPresent(collar -> collar.groups().all()
+                .forEach(group -> collar.location().groupWaypoints(group)
+                        .forEach(waypoint -> index.put(waypoint.id, new WaypointArgument(waypoint, group), waypoint.name)))));
+        this.groups = new SuggestionIndex<>(index -> connectedCollar().ifPresent(collar -> collar.groups().all()
+                .forEach(group -> index.put(group.id, group, group.name))));
+        this.members = new SuggestionIndex<>(index -> connectedCollar().ifPresent(collar -> collar.groups().all().stream()
+                .flatMap(group -> group.members.stream())
+                // Allow searching by the players minecraft name
+                .forEach(member -> index.put(member.profile.id, member, member.profile.name, minecraftName(member)))));
+        this.invitations = new SuggestionIndex<>(index -> connectedCollar().ifPresent(collar -> collar.groups().invitations()
+                .forEach(invitation -> index.put(invitation, invitation, invitation.name))));
+        this.identities = new IdentityDirectory(plastic, eventBus, collarService, generation);
+        eventBus.subscribe(this);
+    }
+
+    /**
+     * @return number that changes whenever any of the indexes may have changed
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Reloads the player indexes when a player joins or leaves
+     */
+    @Subscribe(Preference.CALLER)
+    public void onTick(OnTickEvent event) {
+        List<Player> players = plastic.world.allPlayers();
+        if (players != indexedPlayers) {
+            indexedPlayers = players;
+            this.players.invalidate();
+            members.invalidate();
+            generation.incrementAndGet();
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onStateChanged(CollarStateChangedEvent event) {
+        Stream.of(players, privateWaypoints, groupWaypoints, groups, members, invitations).forEach(SuggestionIndex::invalidate);
+        generation.incrementAndGet();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onWaypointCreated(WaypointCreatedEvent event) {
+        if (event.group == null) {
+            privateWaypoints.put(event.waypoint.id, new WaypointArgument(event.waypoint, null), event.waypoint.name);
+        } else {
+            groupWaypoints.put(event.waypoint.id, new WaypointArgument(event.waypoint, event.group), event.waypoint.name);
+        }
+        generation.incrementAndGet();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onWaypointRemoved(WaypointRemovedEvent event) {
+        if (event.group == null) {
+            privateWaypoints.remove(event.waypoint.id);
+        } else {
+            groupWaypoints.remove(event.waypoint.id);
+        }
+        generation.incrementAndGet();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupCreated(GroupCreatedEvent event) {
+        groupsChanged();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupJoined(GroupJoinedEvent event) {
+        groupsChanged();
+        invitations.invalidate();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupLeft(GroupLeftEvent event) {
+        groupsChanged();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onGroupInvitation(GroupInvitationEvent event) {
+        invitations.invalidate();
+        generation.incrementAndGet();
+    }
+
+    private void groupsChanged() {
+        groups.invalidate();
+        members.invalidate();
+        groupWaypoints.invalidate();
+        generation.incrementAndGet();
+    }
+
+    private String minecraftName(Member member) {
+        if (member.player.minecraftPlayer == null) {
+            return null;
+        }
+        return plastic.world.findPlayerById(member.player.minecraftPlayer.id).map(Player::name).orElse(null);
+    }
+
+    private Optional<Collar> connectedCollar() {
+        return collarService.getCollar().filter(collar -> collar.getState() == Collar.State.CONNECTED);
+    }
+}
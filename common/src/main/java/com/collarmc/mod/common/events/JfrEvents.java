@@ -0,0 +1,48 @@
+package com.collarmc.mod.common.events;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Records JFR events when the JVM has Flight Recorder, and does nothing on the older Java 8 runtimes that do not.
+ * {@link SlowDispatchEvent} is only looked up reflectively, as it is left out of builds on JDKs without jdk.jfr.
+ */
+final class JfrEvents {
+
+    private static final Logger LOGGER = LogManager.getLogger(JfrEvents.class.getName());
+
+    private static final MethodHandle SLOW_DISPATCH;
+
+    static {
+        MethodHandle slowDispatch;
+        try {
+            Class<?> event = Class.forName("com.collarmc.mod.common.events.SlowDispatchEvent", true, JfrEvents.class.getClassLoader());
+            slowDispatch = MethodHandles.lookup().findStatic(event, "commit", MethodType.methodType(void.class, String.class, long.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            slowDispatch = null;
+        }
+        SLOW_DISPATCH = slowDispatch;
+    }
+
+    private JfrEvents() {}
+
+    /**
+     * @param eventType name of the dispatched event class
+     * @param nanos the dispatch took
+     */
+    static void slowDispatch(String eventType, long nanos) {
+        if (SLOW_DISPATCH == null) {
+            return;
+        }
+        try {
+            SLOW_DISPATCH.invokeExact(eventType, nanos);
+        } catch (Throwable e) {
+            // Recording is best effort and must not fail the dispatch it measured
+            LOGGER.debug("Could not record slow dispatch of " + eventType, e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.collarmc.mod.common.events;
+
+import com.collarmc.pounce.EventBus;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Event bus that measures how long each event type takes to dispatch.
+ * Subscribing and dispatching is left to the pounce {@link EventBus}, so subscribers are called exactly as they would
+ * be without profiling. Only time spent on the dispatching thread is measured, which includes subscribers that run on
+ * the caller but not those handed to another executor. For each event type it counts the dispatches, the total and
+ * longest time they took and the thread they last ran on. Dispatches slower than the threshold,
+ * {@link #DEFAULT_SLOW_NANOS} by default, are also recorded as JFR events when the JVM supports them.
+ * Profiling is off unless the {@code collar.events.profile} system property is set, see {@link #create(Executor)}.
+ */
+public final class ProfilingEventBus extends EventBus {
+
+    /**
+     * Dispatches slower than this are recorded as JFR events
+     */
+    public static final long DEFAULT_SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final long slowNanos;
+    private final ConcurrentMap<Class<?>, Timer> dispatches = new ConcurrentHashMap<>();
+
+    /**
+     * @param mainExecutor to call subscribers that prefer the main thread on
+     * @param slowNanos dispatches slower than this are recorded as JFR events
+     */
+    public ProfilingEventBus(Executor mainExecutor, long slowNanos) {
+        super(mainExecutor);
+        this.slowNanos = slowNanos;
+    }
+
+    public ProfilingEventBus(Executor mainExecutor) {
+        this(mainExecutor, DEFAULT_SLOW_NANOS);
+    }
+
+    /**
+     * @param mainExecutor to call subscribers that prefer the main thread on
+     * @return profiling event bus if {@code -Dcollar.events.profile=true} is set, otherwise a plain pounce event bus
+     */
+    public static EventBus create(Executor mainExecutor) {
+        return Boolean.getBoolean("collar.events.profile") ? new ProfilingEventBus(mainExecutor) : new EventBus(mainExecutor);
+    }
+
+    @Override
+    public <T> T dispatch(T event) {
+        long start = System.nanoTime();
+        try {
+            return super.dispatch(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Class<?> eventType = event.getClass();
+            dispatches.computeIfAbsent(eventType, type -> new Timer()).record(elapsed);
+            if (elapsed >= slowNanos) {
+                JfrEvents.slowDispatch(eventType.getName(), elapsed);
+            }
+        }
+    }
+
+    /**
+     * @return time spent dispatching each event type on the dispatching thread, slowest first
+     */
+    public List<Stats> eventStats() {
+        return dispatches.entrySet().stream()
+                .map(entry -> entry.getValue().stats(entry.getKey().getSimpleName()))
+                .filter(stat -> stat.count > 0)
+                .sorted(Comparator.comparingLong((Stats stat) -> stat.totalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forgets everything measured so far
+     */
+    public void reset() {
+        dispatches.clear();
+    }
+
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String thread;
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            thread = Thread.currentThread().getName();
+        }
+
+        Stats stats(String name) {
+            return new Stats(name, count.sum(), totalNanos.sum(), maxNanos.get(), thread);
+        }
+    }
+
+    public static final class Stats {
+        public final String name;
+        public final long count;
+        public final long totalNanos;
+        public final long maxNanos;
+        public final String thread;
+
+        public Stats(String name, long count, long totalNanos, long maxNanos, String thread) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.thread = thread;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d calls, total %.1fms, avg %.3fms, max %.2fms, on %s",
+                    name, count, totalNanos / 1e6, count == 0 ? 0 : totalNanos / 1e6 / count, maxNanos / 1e6, thread);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.collarmc.mod.common.events;
+
+import jdk.jfr.*;
+
+/**
+ * A dispatch that took longer than the {@link ProfilingEventBus} allows.
+ * Only loaded through {@link JfrEvents}, as Java 8 runtimes may not have Flight Recorder, and left out of the build on
+ * JDKs without it.
+ */
+@Name("com.collarmc.SlowDispatch")
+@Label("Slow Event Dispatch")
+@Category("Collar")
+@Description("Event dispatch that was slower than the profiling threshold")
+final class SlowDispatchEvent extends Event {
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    static void commit(String eventType, long nanos) {
+        SlowDispatchEvent event = new SlowDispatchEvent();
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+}
@@ -49,9 +49,8 @@ public class Groups {
         if (event.invitation.type == GroupType.NEARBY || event.invitation.sender == null) {
             return;
         }
-        com.collarmc.plastic.player.Player player = plastic.world.allPlayers()
-                .stream().filter(player1 -> player1.id().equals(event.invitation.sender.minecraftPlayer.id))
-                .findFirst().orElseThrow(() -> new IllegalStateException("cannot find player " + event.invitation.sender.minecraftPlayer.id));
+        com.collarmc.plastic.player.Player player = plastic.world.findPlayerById(event.invitation.sender.minecraftPlayer.id)
+                .orElseThrow(() -> new IllegalStateException("cannot find player " + event.invitation.sender.minecraftPlayer.id));
         String message = String.format("You are invited to %s %s by %s", event.invitation.type.name, event.invitation.name, player.name());
         this.plastic.display.displayStatusMessage(message);
         this.plastic.display.displayInfoMessage(message);
@@ -1,72 +1,103 @@
 package com.collarmc.mod.common.integrations;
 
-import com.collarmc.api.groups.Group;
 import com.collarmc.api.waypoints.Waypoint;
-import com.collarmc.client.Collar;
-import com.collarmc.client.api.location.events.WaypointCreatedEvent;
-import com.collarmc.client.api.location.events.WaypointRemovedEvent;
-import com.collarmc.client.events.CollarStateChangedEvent;
+import com.collarmc.mod.common.CollarService;
 import com.collarmc.plastic.Plastic;
-import com.collarmc.pounce.EventBus;
-import com.collarmc.pounce.Preference;
-import com.collarmc.pounce.Subscribe;
 
-public abstract class AbstractWaypointCommandIntegration {
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mirrors Collar waypoints into a client that manages waypoints through chat commands, a few commands per tick so
+ * syncing many waypoints does not flood the clients command parser.
+ * The number of commands per tick can be set with a system property named
+ * {@code collar.integrations.<client>.commandsPerTick}, e.g. {@code -Dcollar.integrations.rusherhack.commandsPerTick=4}
+ */
+public abstract class AbstractWaypointCommandIntegration implements WaypointSink {
+
+    /**
+     * Commands sent per tick unless configured otherwise
+     */
+    public static final int DEFAULT_COMMANDS_PER_TICK = 2;
 
     protected final Plastic plastic;
+    private final CollarService collarService;
+    private volatile int commandsPerTick;
 
-    public AbstractWaypointCommandIntegration(Plastic plastic, EventBus eventBus) {
+    public AbstractWaypointCommandIntegration(Plastic plastic, CollarService collarService) {
         this.plastic = plastic;
-        eventBus.subscribe(this);
+        this.collarService = collarService;
+        setCommandsPerTick(Integer.getInteger("collar.integrations." + clientName() + ".commandsPerTick", DEFAULT_COMMANDS_PER_TICK));
     }
 
-    @Subscribe(Preference.CALLER)
-    public void onStateChanged(CollarStateChangedEvent event) {
-        if (event.state == Collar.State.DISCONNECTING) {
-            // Remove private waypoints
-            event.collar.location().privateWaypoints().forEach(waypoint -> removeWaypoint(waypoint, null));
-            // Remove group waypoints
-            event.collar.groups().groups()
-                    .forEach(group -> event.collar.location().groupWaypoints(group).forEach(waypoint -> removeWaypoint(waypoint, group)));
+    /**
+     * @param commandsPerTick maximum number of commands sent to the client each tick
+     */
+    public void setCommandsPerTick(int commandsPerTick) {
+        if (commandsPerTick < 1) {
+            throw new IllegalArgumentException("commandsPerTick must be at least 1");
         }
+        this.commandsPerTick = commandsPerTick;
     }
 
-    @Subscribe(Preference.CALLER)
-    public void onWaypointCreated(WaypointCreatedEvent event) {
-        if (!isLoaded()) {
-            return;
+    /**
+     * @return name of the client and the server, as what was sent on one server is not there on another
+     */
+    @Override
+    public String id() {
+        return clientName() + "-" + WaypointSync.server(collarService).orElse("unknown");
+    }
+
+    @Override
+    public int batchSize() {
+        return commandsPerTick;
+    }
+
+    @Override
+    public int flushIntervalTicks() {
+        return 1;
+    }
+
+    @Override
+    public List<WaypointChange> write(List<WaypointChange> changes) {
+        for (WaypointChange change : changes) {
+            if (change.isRemoval()) {
+                sendRemoveWaypoint(change.name);
+            } else {
+                sendAddWaypoint(change.name, change.waypoint);
+            }
         }
+        return changes;
+    }
+
+    private void sendAddWaypoint(String name, Waypoint waypoint) {
         plastic.world.chatService.sendChatMessageToSelf(String.format(
                 "%s%s %s \"%s\" %s %s %s %s",
                 prefix(),
                 waypointsCommand(),
                 addCommand(),
-                name(event.waypoint, event.group),
-                event.waypoint.location.x,
-                event.waypoint.location.y,
-                event.waypoint.location.z,
-                event.waypoint.location.dimension.name().toLowerCase()
+                name,
+                waypoint.location.x,
+                waypoint.location.y,
+                waypoint.location.z,
+                waypoint.location.dimension.name().toLowerCase()
         ));
     }
 
-    @Subscribe(Preference.CALLER)
-    public void onWaypointRemoved(WaypointRemovedEvent event) {
-        if (!isLoaded()) {
-            return;
-        }
-        removeWaypoint(event.waypoint, event.group);
-    }
-
-    private void removeWaypoint(Waypoint waypoint, Group group) {
+    private void sendRemoveWaypoint(String name) {
         plastic.world.chatService.sendChatMessageToSelf(String.format(
                 "%s%s %s \"%s\"",
                 prefix(),
                 waypointsCommand(),
                 removeCommand(),
-                name(waypoint, group)
+                name
         ));
     }
 
+    private String clientName() {
+        return getClass().getSimpleName().toLowerCase(Locale.ROOT);
+    }
+
     protected abstract String prefix();
 
     protected abstract String waypointsCommand();
@@ -74,10 +105,4 @@ public abstract class AbstractWaypointCommandIntegration {
     protected abstract String addCommand();
 
     protected abstract String removeCommand();
-
-    public abstract boolean isLoaded();
-
-    private static String name(Waypoint waypoint, Group group) {
-        return group == null ? waypoint.name : group.name + " - " + waypoint.name;
-    }
 }
@@ -0,0 +1,112 @@
+package com.collarmc.mod.common.integrations;
+
+import com.collarmc.api.location.Dimension;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes waypoints straight into the waypoint files of a minimap, one file per dimension.
+ * Changes are collected for {@link #DEFAULT_FLUSH_INTERVAL_TICKS} and then written together. Each file is rewritten
+ * only if its contents changed, to a temporary file that is then moved over it, so the minimap never reads a half
+ * written file.
+ */
+public abstract class FileWaypointSink implements WaypointSink {
+
+    private static final Logger LOGGER = LogManager.getLogger(FileWaypointSink.class.getName());
+
+    /**
+     * Ticks between writes
+     */
+    public static final int DEFAULT_FLUSH_INTERVAL_TICKS = 100;
+
+    @Override
+    public int batchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int flushIntervalTicks() {
+        return DEFAULT_FLUSH_INTERVAL_TICKS;
+    }
+
+    @Override
+    public List<WaypointChange> write(List<WaypointChange> changes) {
+        Set<WaypointChange> written = new HashSet<>();
+        // Removals apply to every file as they do not say where the waypoint was, so they are only written if every
+        // file they went to was
+        boolean removalsWritten = false;
+        for (Dimension dimension : Dimension.values()) {
+            Optional<File> file = file(dimension);
+            if (!file.isPresent()) {
+                continue;
+            }
+            List<WaypointChange> relevant = changes.stream()
+                    .filter(change -> change.isRemoval() || change.waypoint.location.dimension == dimension)
+                    .collect(Collectors.toList());
+            if (relevant.isEmpty()) {
+                continue;
+            }
+            if (write(file.get(), relevant)) {
+                written.addAll(relevant);
+                removalsWritten = true;
+            } else {
+                removalsWritten = false;
+                break;
+            }
+        }
+        boolean removed = removalsWritten;
+        return changes.stream()
+                .filter(change -> change.isRemoval() ? removed : written.contains(change))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param dimension of waypoints
+     * @return file the waypoints of the dimension are kept in, or empty if it is not known
+     */
+    protected abstract Optional<File> file(Dimension dimension);
+
+    /**
+     * @param lines of the file, empty if it does not exist yet
+     * @param changes to the waypoints in the file
+     * @return lines of the file with the changes applied
+     */
+    protected abstract List<String> apply(List<String> lines, List<WaypointChange> changes);
+
+    /**
+     * @return true if the file has the changes
+     */
+    private boolean write(File file, List<WaypointChange> changes) {
+        try {
+            List<String> lines = file.exists() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : Collections.emptyList();
+            List<String> updated = apply(new ArrayList<>(lines), changes);
+            if (updated.equals(lines)) {
+                return true;
+            }
+            File directory = file.getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("could not create " + directory);
+            }
+            File temp = File.createTempFile(file.getName(), ".tmp", directory);
+            Files.write(temp.toPath(), updated, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Could not write waypoints to " + file, e);
+            return false;
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.collarmc.mod.common.integrations;
 
+import com.collarmc.libs.org.fasterxml.jackson.core.type.TypeReference;
+import com.collarmc.mod.common.CollarService;
 import com.collarmc.plastic.Plastic;
-import com.collarmc.pounce.EventBus;
+import com.collarmc.utils.Utils;
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
 
 public final class FutureClient extends AbstractWaypointCommandIntegration {
 
@@ -20,8 +30,11 @@ public final class FutureClient extends AbstractWaypointCommandIntegration {
         loaded = found;
     }
 
-    public FutureClient(Plastic plastic, EventBus eventBus) {
-        super(plastic, eventBus);
+    private final WatchedConfig<String> prefix;
+
+    public FutureClient(Plastic plastic, CollarService collarService) {
+        super(plastic, collarService);
+        this.prefix = new WatchedConfig<>(configFiles(plastic), FutureClient::readPrefix, DEFAULT_PREFIX);
     }
 
     @Override
@@ -46,7 +59,54 @@ public final class FutureClient extends AbstractWaypointCommandIntegration {
 
     @Override
     protected String prefix() {
-        // TODO: find the prefix in future config
-        return DEFAULT_PREFIX;
+        return prefix.get();
+    }
+
+    /**
+     * Future keeps its config in a Future directory, either in the game directory or the users home directory
+     * @return files that may hold the prefix, in order of preference
+     */
+    private static List<File> configFiles(Plastic plastic) {
+        ImmutableList.Builder<File> files = ImmutableList.builder();
+        for (File directory : ImmutableList.of(new File(plastic.home(), "Future"), new File(System.getProperty("user.home"), "Future"))) {
+            files.add(new File(directory, "prefix.json"), new File(directory, "client.json"), new File(directory, "prefix.txt"));
+        }
+        return files.build();
+    }
+
+    /**
+     * Reads the first prefix entry, either from a json object at any depth, from a key/value line or from a file
+     * holding only the prefix
+     */
+    private static String readPrefix(File file) throws IOException {
+        if (file.getName().endsWith(".json")) {
+            Map<String, Object> config = Utils.jsonMapper().readValue(file, new TypeReference<Map<String, Object>>() { });
+            return findPrefix(config);
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] parts = line.split("[=:]", 2);
+            if (parts.length == 2 && parts[0].trim().equalsIgnoreCase("prefix")) {
+                return parts[1].trim();
+            }
+        }
+        return lines.size() == 1 && !lines.get(0).trim().isEmpty() ? lines.get(0).trim() : null;
+    }
+
+    private static String findPrefix(Map<?, ?> config) {
+        for (Map.Entry<?, ?> entry : config.entrySet()) {
+            if ("prefix".equalsIgnoreCase(String.valueOf(entry.getKey())) && entry.getValue() instanceof String) {
+                return (String) entry.getValue();
+            }
+        }
+        for (Object value : config.values()) {
+            if (value instanceof Map) {
+                String prefix = findPrefix((Map<?, ?>) value);
+                if (prefix != null) {
+                    return prefix;
+                }
+            }
+        }
+        return null;
     }
 }
@@ -1,7 +1,11 @@
 package com.collarmc.mod.common.integrations;
 
+import com.collarmc.mod.common.CollarService;
 import com.collarmc.plastic.Plastic;
 import com.collarmc.pounce.EventBus;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 /**
  * Client integrations
@@ -10,9 +14,23 @@ public final class Integrations {
 
     public final RusherHack rusherHack;
     public final FutureClient futureClient;
+    public final XaeroMinimap xaeroMinimap;
+    private final List<WaypointSync> waypointSyncs;
+
+    public Integrations(Plastic plastic, EventBus eventBus, CollarService collarService) {
+        rusherHack = new RusherHack(plastic, collarService);
+        futureClient = new FutureClient(plastic, collarService);
+        xaeroMinimap = new XaeroMinimap(plastic, collarService);
+        waypointSyncs = ImmutableList.of(
+                new WaypointSync(plastic, eventBus, rusherHack),
+                new WaypointSync(plastic, eventBus, futureClient),
+                new WaypointSync(plastic, eventBus, xaeroMinimap));
+    }
 
-    public Integrations(Plastic plastic, EventBus eventBus) {
-        rusherHack = new RusherHack(plastic, eventBus);
-        futureClient = new FutureClient(plastic, eventBus);
+    /**
+     * @return the sync of every integration that mirrors waypoints
+     */
+    public List<WaypointSync> waypointSyncs() {
+        return waypointSyncs;
     }
 }
@@ -1,10 +1,11 @@
 package com.collarmc.mod.common.integrations;
 
 import com.collarmc.libs.org.fasterxml.jackson.core.type.TypeReference;
+import com.collarmc.mod.common.CollarService;
 import com.collarmc.plastic.Plastic;
-import com.collarmc.pounce.EventBus;
 import com.collarmc.utils.Utils;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,8 +28,11 @@ public final class RusherHack extends AbstractWaypointCommandIntegration {
         loaded = found;
     }
 
-    public RusherHack(Plastic plastic, EventBus eventBus) {
-        super(plastic, eventBus);
+    private final WatchedConfig<String> prefix;
+
+    public RusherHack(Plastic plastic, CollarService collarService) {
+        super(plastic, collarService);
+        this.prefix = new WatchedConfig<>(ImmutableList.of(new File(plastic.home(), "rusherhack/prefix.json")), RusherHack::readPrefix, DEFAULT_PREFIX);
     }
 
     @Override
@@ -38,17 +42,7 @@ public final class RusherHack extends AbstractWaypointCommandIntegration {
 
     @Override
     protected String prefix() {
-        File file = new File(plastic.home(), "rusherhack/prefix.json");
-        if (file.exists()) {
-            List<PrefixFile> prefixFile;
-            try {
-                prefixFile = Utils.jsonMapper().readValue(file, new TypeReference<List<PrefixFile>>() { });
-            } catch (IOException e) {
-                return DEFAULT_PREFIX;
-            }
-            return prefixFile.stream().findFirst().map(config -> config.prefix).orElse(DEFAULT_PREFIX);
-        }
-        return DEFAULT_PREFIX;
+        return prefix.get();
     }
 
     @Override
@@ -66,6 +60,11 @@ public final class RusherHack extends AbstractWaypointCommandIntegration {
         return "remove";
     }
 
+    private static String readPrefix(File file) throws IOException {
+        List<PrefixFile> prefixFile = Utils.jsonMapper().readValue(file, new TypeReference<List<PrefixFile>>() { });
+        return prefixFile.stream().findFirst().map(config -> config.prefix).orElse(null);
+    }
+
     private static final class PrefixFile {
         public final String prefix;
 
@@ -0,0 +1,98 @@
+package com.collarmc.mod.common.integrations;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A value read from a client config file, parsed once and read again only when the file changes.
+ * The first of the candidate files that exists is used, so a config can be discovered in several places. Files are
+ * checked for changes by modification time and size at most once every {@link #POLL_INTERVAL_MILLIS}, and
+ * {@link #get()} otherwise only reads a volatile snapshot.
+ * @param <T> parsed value
+ */
+final class WatchedConfig<T> {
+
+    private static final Logger LOGGER = LogManager.getLogger(WatchedConfig.class.getName());
+
+    static final long POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final List<File> candidates;
+    private final Parser<T> parser;
+    private final T defaultValue;
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * @param candidates files to read, in order of preference
+     * @param parser of a file
+     * @param defaultValue when no file exists or it could not be parsed
+     */
+    WatchedConfig(List<File> candidates, Parser<T> parser, T defaultValue) {
+        this.candidates = candidates;
+        this.parser = parser;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * @return value of the current config file
+     */
+    T get() {
+        Snapshot<T> current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.checkedAt < POLL_INTERVAL_MILLIS) {
+            return current.value;
+        }
+        File file = candidates.stream().filter(File::isFile).findFirst().orElse(null);
+        long lastModified = file == null ? 0 : file.lastModified();
+        long length = file == null ? 0 : file.length();
+        if (current != null && current.isOf(file, lastModified, length)) {
+            snapshot = new Snapshot<>(current.value, file, lastModified, length, now);
+            return current.value;
+        }
+        T value = read(file);
+        // Racing readers may both parse the file, but both publish the same value
+        snapshot = new Snapshot<>(value, file, lastModified, length, now);
+        return value;
+    }
+
+    private T read(File file) {
+        if (file == null) {
+            return defaultValue;
+        }
+        try {
+            T value = parser.parse(file);
+            return value == null ? defaultValue : value;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read client config " + file, e);
+            return defaultValue;
+        }
+    }
+
+    interface Parser<T> {
+        T parse(File file) throws IOException;
+    }
+
+    private static final class Snapshot<T> {
+        public final T value;
+        public final File file;
+        public final long lastModified;
+        public final long length;
+        public final long checkedAt;
+
+        public Snapshot(T value, File file, long lastModified, long length, long checkedAt) {
+            this.value = value;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checkedAt = checkedAt;
+        }
+
+        public boolean isOf(File file, long lastModified, long length) {
+            return (file == null ? this.file == null : file.equals(this.file)) && this.lastModified == lastModified && this.length == length;
+        }
+    }
+}
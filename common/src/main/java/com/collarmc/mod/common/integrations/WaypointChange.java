@@ -0,0 +1,38 @@
+package com.collarmc.mod.common.integrations;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.waypoints.Waypoint;
+
+/**
+ * A waypoint to add to or remove from a {@link WaypointSink}
+ */
+public final class WaypointChange {
+
+    /**
+     * Name of the waypoint in the sink
+     */
+    public final String name;
+
+    /**
+     * Waypoint to add, or null to remove the waypoint with the name
+     */
+    public final Waypoint waypoint;
+
+    /**
+     * Group the waypoint to add belongs to, or null if it is private or being removed
+     */
+    public final Group group;
+
+    public WaypointChange(String name, Waypoint waypoint, Group group) {
+        this.name = name;
+        this.waypoint = waypoint;
+        this.group = group;
+    }
+
+    /**
+     * @return true if the waypoint should be removed
+     */
+    public boolean isRemoval() {
+        return waypoint == null;
+    }
+}
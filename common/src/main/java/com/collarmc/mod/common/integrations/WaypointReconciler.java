@@ -0,0 +1,227 @@
+package com.collarmc.mod.common.integrations;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.waypoints.Waypoint;
+import com.collarmc.libs.org.fasterxml.jackson.core.type.TypeReference;
+import com.collarmc.utils.Utils;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Keeps the waypoints of a client integration in step with Collar by sending only what changed.
+ * The reconciler knows which waypoints Collar wants the client to have and which were last pushed to it. The pushed
+ * waypoints are saved to a file, so after a restart or reconnect only waypoints that were added, removed or moved since
+ * are sent again. Changes are kept per waypoint name, so a waypoint added and removed again before it was pushed is
+ * never sent at all. Thread safe.
+ */
+final class WaypointReconciler {
+
+    private static final Logger LOGGER = LogManager.getLogger(WaypointReconciler.class.getName());
+
+    final File file;
+    private final Map<String, Wanted> wanted = new HashMap<>();
+    private final Set<String> changed = new LinkedHashSet<>();
+    private Map<String, PushedWaypoint> pushed;
+    private boolean unsaved;
+
+    /**
+     * @param file to keep the pushed waypoints in
+     */
+    WaypointReconciler(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param name of waypoint in the client
+     * @param waypoint the client should have
+     * @param group the waypoint belongs to, or null
+     */
+    synchronized void put(String name, Waypoint waypoint, Group group) {
+        wanted.put(name, new Wanted(waypoint, group));
+        changed.add(name);
+    }
+
+    /**
+     * @param name of waypoint the client should no longer have
+     */
+    synchronized void remove(String name) {
+        wanted.remove(name);
+        changed.add(name);
+    }
+
+    /**
+     * Replaces every waypoint the client should have, such as when Collar connects
+     * @param waypoints by name
+     */
+    synchronized void replaceAll(Map<String, Wanted> waypoints) {
+        changed.addAll(wanted.keySet());
+        changed.addAll(pushed().keySet());
+        changed.addAll(waypoints.keySet());
+        wanted.clear();
+        wanted.putAll(waypoints);
+    }
+
+    /**
+     * Works out the changes that bring the client up to date, oldest change first. Nothing is recorded as pushed until
+     * the changes are passed to {@link #pushed(List)}.
+     * @param limit maximum number of changes
+     * @return changes to write to the client
+     */
+    synchronized List<WaypointChange> drain(int limit) {
+        List<WaypointChange> changes = new ArrayList<>();
+        Map<String, PushedWaypoint> pushed = pushed();
+        Iterator<String> iterator = changed.iterator();
+        // A moved waypoint needs two changes, so stop one early rather than split it
+        while (changes.size() < limit && iterator.hasNext()) {
+            String name = iterator.next();
+            Wanted want = wanted.get(name);
+            PushedWaypoint current = pushed.get(name);
+            PushedWaypoint next = want == null ? null : PushedWaypoint.of(name, want.waypoint);
+            if (Objects.equals(current, next)) {
+                iterator.remove();
+                continue;
+            }
+            if (current != null && next != null && changes.size() + 2 > limit && !changes.isEmpty()) {
+                break;
+            }
+            if (current != null) {
+                changes.add(new WaypointChange(name, null, null));
+            }
+            if (next != null) {
+                changes.add(new WaypointChange(name, want.waypoint, want.group));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Records changes as pushed once the client has them
+     * @param changes that were written to the client, in order
+     */
+    synchronized void pushed(List<WaypointChange> changes) {
+        Map<String, PushedWaypoint> pushed = pushed();
+        for (WaypointChange change : changes) {
+            if (change.isRemoval()) {
+                pushed.remove(change.name);
+            } else {
+                pushed.put(change.name, PushedWaypoint.of(change.name, change.waypoint));
+            }
+            unsaved = true;
+        }
+        for (WaypointChange change : changes) {
+            Wanted want = wanted.get(change.name);
+            PushedWaypoint next = want == null ? null : PushedWaypoint.of(change.name, want.waypoint);
+            if (Objects.equals(pushed.get(change.name), next)) {
+                changed.remove(change.name);
+            }
+        }
+    }
+
+    /**
+     * @return number of waypoints that may need to be pushed to the client
+     */
+    synchronized int size() {
+        return changed.size();
+    }
+
+    /**
+     * Saves the pushed waypoints if they changed since they were last saved
+     */
+    synchronized void save() {
+        if (!unsaved) {
+            return;
+        }
+        unsaved = false;
+        File directory = file.getParentFile();
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("could not create " + directory);
+            }
+            File temp = File.createTempFile(file.getName(), ".tmp", directory);
+            Utils.jsonMapper().writeValue(temp, new ArrayList<>(pushed().values()));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save pushed waypoints to " + file, e);
+        }
+    }
+
+    /**
+     * @return waypoints last pushed to the client, loaded from the file the first time they are needed
+     */
+    private Map<String, PushedWaypoint> pushed() {
+        if (pushed == null) {
+            pushed = new HashMap<>();
+            if (file.exists()) {
+                try {
+                    List<PushedWaypoint> saved = Utils.jsonMapper().readValue(file, new TypeReference<List<PushedWaypoint>>() {});
+                    saved.forEach(waypoint -> pushed.put(waypoint.name, waypoint));
+                } catch (IOException e) {
+                    LOGGER.warn("Could not load pushed waypoints from " + file, e);
+                }
+            }
+        }
+        return pushed;
+    }
+
+    /**
+     * A waypoint the client should have
+     */
+    static final class Wanted {
+        public final Waypoint waypoint;
+        public final Group group;
+
+        public Wanted(Waypoint waypoint, Group group) {
+            this.waypoint = waypoint;
+            this.group = group;
+        }
+    }
+
+    private static final class PushedWaypoint {
+        @JsonProperty("name")
+        public final String name;
+        @JsonProperty("x")
+        public final double x;
+        @JsonProperty("y")
+        public final double y;
+        @JsonProperty("z")
+        public final double z;
+        @JsonProperty("dimension")
+        public final String dimension;
+
+        public PushedWaypoint(@JsonProperty("name") String name,
+                              @JsonProperty("x") double x,
+                              @JsonProperty("y") double y,
+                              @JsonProperty("z") double z,
+                              @JsonProperty("dimension") String dimension) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.dimension = dimension;
+        }
+
+        public static PushedWaypoint of(String name, Waypoint waypoint) {
+            return new PushedWaypoint(name, waypoint.location.x, waypoint.location.y, waypoint.location.z, waypoint.location.dimension.name());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PushedWaypoint that = (PushedWaypoint) o;
+            return Double.compare(that.x, x) == 0 && Double.compare(that.y, y) == 0 && Double.compare(that.z, z) == 0 && dimension.equals(that.dimension);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(x, y, z, dimension);
+        }
+    }
+}
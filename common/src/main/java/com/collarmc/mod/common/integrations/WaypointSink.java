@@ -0,0 +1,48 @@
+package com.collarmc.mod.common.integrations;
+
+import java.util.List;
+
+/**
+ * Somewhere Collar waypoints are mirrored to, such as another client or a minimap.
+ * Sinks are driven by {@link WaypointSync}, which works out what changed since the last write and hands the changes to
+ * {@link #write(List)} on the client thread, at most {@link #batchSize()} at a time every
+ * {@link #flushIntervalTicks()} ticks. Only changes the sink reports as written are recorded as written, the rest are
+ * handed to it again on a later write.
+ */
+public interface WaypointSink {
+
+    /**
+     * @return name of the sink, used to name the file recording what was written to it. May change when the sink
+     * writes somewhere else, such as per server.
+     */
+    String id();
+
+    /**
+     * @return true if the sink can be written to, such as when the client it writes to is installed
+     */
+    boolean isLoaded();
+
+    /**
+     * @return maximum number of changes passed to a single write
+     */
+    int batchSize();
+
+    /**
+     * @return ticks between writes
+     */
+    int flushIntervalTicks();
+
+    /**
+     * @return true if the sink is written while the player is in a world, false if only while they are not, such as a
+     * minimap that reads its files when joining a world and overwrites them when leaving it
+     */
+    default boolean writesInWorld() {
+        return true;
+    }
+
+    /**
+     * @param changes to apply, in order
+     * @return the changes that were written, in order
+     */
+    List<WaypointChange> write(List<WaypointChange> changes);
+}
@@ -0,0 +1,152 @@
+package com.collarmc.mod.common.integrations;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.waypoints.Waypoint;
+import com.collarmc.client.Collar;
+import com.collarmc.client.api.location.events.WaypointCreatedEvent;
+import com.collarmc.client.api.location.events.WaypointRemovedEvent;
+import com.collarmc.client.events.CollarStateChangedEvent;
+import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.integrations.WaypointReconciler.Wanted;
+import com.collarmc.plastic.Plastic;
+import com.collarmc.plastic.events.client.OnTickEvent;
+import com.collarmc.pounce.EventBus;
+import com.collarmc.pounce.Preference;
+import com.collarmc.pounce.Subscribe;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mirrors Collar waypoints into a {@link WaypointSink}.
+ * Changes are worked out by a {@link WaypointReconciler}, which remembers what was written to the sink, and are written
+ * in batches so syncing many waypoints does not flood the sink or block the thread that changed them. Sinks that must
+ * not be written while the player is in a world are written after they leave it. Waypoints are left in the sink when
+ * Collar disconnects and reconciled when it connects again.
+ */
+public final class WaypointSync {
+
+    /**
+     * Ticks to wait after connecting before writing, so waypoints Collar loads just after connecting do not look like
+     * they were removed
+     */
+    private static final int SETTLE_TICKS = 40;
+
+    /**
+     * Ticks between saving what was written while a long sync is still running
+     */
+    private static final int SAVE_TICKS = 200;
+
+    public final WaypointSink sink;
+    private final Plastic plastic;
+    private volatile WaypointReconciler reconciler;
+    private volatile int settleTicks;
+    private int ticksSinceFlush;
+    private int ticksSinceSave;
+
+    public WaypointSync(Plastic plastic, EventBus eventBus, WaypointSink sink) {
+        this.plastic = plastic;
+        this.sink = sink;
+        this.reconciler = reconciler(sink.id());
+        eventBus.subscribe(this);
+    }
+
+    /**
+     * @return number of waypoints that may still need to be written to the sink
+     */
+    public int pendingWaypoints() {
+        return reconciler.size();
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onTick(OnTickEvent event) {
+        if (!sink.isLoaded()) {
+            return;
+        }
+        if (settleTicks > 0) {
+            settleTicks--;
+            return;
+        }
+        if (plastic.world.hasCurrentPlayer() != sink.writesInWorld()) {
+            return;
+        }
+        if (++ticksSinceFlush < sink.flushIntervalTicks()) {
+            return;
+        }
+        ticksSinceFlush = 0;
+        WaypointReconciler reconciler = this.reconciler;
+        if (reconciler.size() == 0) {
+            return;
+        }
+        List<WaypointChange> changes = reconciler.drain(sink.batchSize());
+        if (!changes.isEmpty()) {
+            reconciler.pushed(sink.write(changes));
+        }
+        if (reconciler.size() == 0 || ++ticksSinceSave >= SAVE_TICKS) {
+            ticksSinceSave = 0;
+            reconciler.save();
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onStateChanged(CollarStateChangedEvent event) {
+        if (event.state == Collar.State.DISCONNECTING) {
+            reconciler.save();
+        } else if (event.state == Collar.State.CONNECTED && sink.isLoaded()) {
+            Map<String, Wanted> waypoints = new HashMap<>();
+            event.collar.location().privateWaypoints().forEach(waypoint -> waypoints.put(name(waypoint, null), new Wanted(waypoint, null)));
+            event.collar.groups().groups()
+                    .forEach(group -> event.collar.location().groupWaypoints(group).forEach(waypoint -> waypoints.put(name(waypoint, group), new Wanted(waypoint, group))));
+            // The sink may write somewhere else on this connection
+            String id = sink.id();
+            if (!reconciler.file.equals(file(id))) {
+                reconciler.save();
+                reconciler = reconciler(id);
+            }
+            settleTicks = SETTLE_TICKS;
+            reconciler.replaceAll(waypoints);
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onWaypointCreated(WaypointCreatedEvent event) {
+        if (!sink.isLoaded()) {
+            return;
+        }
+        reconciler.put(name(event.waypoint, event.group), event.waypoint, event.group);
+    }
+
+    @Subscribe(Preference.CALLER)
+    public void onWaypointRemoved(WaypointRemovedEvent event) {
+        if (!sink.isLoaded()) {
+            return;
+        }
+        reconciler.remove(name(event.waypoint, event.group));
+    }
+
+    private WaypointReconciler reconciler(String id) {
+        return new WaypointReconciler(file(id));
+    }
+
+    private File file(String id) {
+        return new File(plastic.home(), "collar/integrations/" + id + ".json");
+    }
+
+    /**
+     * @param collarService to get the server from
+     * @return server Collar is connected to, made safe to use in file names
+     */
+    static Optional<String> server(CollarService collarService) {
+        return collarService.getCollar()
+                .filter(collar -> collar.getState() == Collar.State.CONNECTED)
+                .map(collar -> collar.player().minecraftPlayer.server)
+                .map(server -> server.replace(':', '_'));
+    }
+
+    private static String name(Waypoint waypoint, Group group) {
+        return group == null ? waypoint.name : group.name + " - " + waypoint.name;
+    }
+}
@@ -0,0 +1,156 @@
+package com.collarmc.mod.common.integrations;
+
+import com.collarmc.api.location.Dimension;
+import com.collarmc.mod.common.CollarService;
+import com.collarmc.plastic.Plastic;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Writes Collar waypoints into Xaero's Minimap waypoint files, as their own waypoint set so the players own waypoints
+ * are left alone. Xaero's Minimap reads the files when joining a world and overwrites them when leaving it, so they are
+ * only written once the player has left the server, into the files of the server they were last connected to.
+ */
+public final class XaeroMinimap extends FileWaypointSink {
+
+    private static final String SET = "collar";
+    private static final String WAYPOINT = "waypoint:";
+    private static final String SETS = "sets:";
+    private static final int PRIVATE_COLOR = 13;
+    private static final int GROUP_COLOR = 11;
+    private static final boolean loaded;
+
+    static {
+        boolean found;
+        try {
+            XaeroMinimap.class.getClassLoader().loadClass("xaero.common.IXaeroMinimap");
+            found = true;
+        } catch (ClassNotFoundException ignored) {
+            found = false;
+        }
+        loaded = found;
+    }
+
+    private final Plastic plastic;
+    private final CollarService collarService;
+    private volatile String lastServer;
+
+    public XaeroMinimap(Plastic plastic, CollarService collarService) {
+        this.plastic = plastic;
+        this.collarService = collarService;
+    }
+
+    @Override
+    public String id() {
+        return "xaerominimap-" + server().orElse("unknown");
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded && server().isPresent();
+    }
+
+    @Override
+    public boolean writesInWorld() {
+        return false;
+    }
+
+    @Override
+    protected Optional<File> file(Dimension dimension) {
+        String directory;
+        switch (dimension) {
+            case OVERWORLD:
+                directory = "dim%0";
+                break;
+            case NETHER:
+                directory = "dim%-1";
+                break;
+            case END:
+                directory = "dim%1";
+                break;
+            default:
+                return Optional.empty();
+        }
+        return server().map(server -> new File(plastic.home(), "XaeroWaypoints/Multiplayer_" + server + "/" + directory + "/mw$default_1.txt"));
+    }
+
+    @Override
+    protected List<String> apply(List<String> lines, List<WaypointChange> changes) {
+        Map<String, String> waypoints = new LinkedHashMap<>();
+        List<String> other = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.split(":");
+            if (line.startsWith(WAYPOINT) && fields.length > 9 && fields[9].equals(SET)) {
+                waypoints.put(fields[1], line);
+            } else {
+                other.add(line);
+            }
+        }
+        for (WaypointChange change : changes) {
+            String name = escape(change.name);
+            if (change.isRemoval()) {
+                waypoints.remove(name);
+            } else {
+                waypoints.put(name, line(name, change));
+            }
+        }
+        if (other.isEmpty()) {
+            other.add("#");
+            other.add("#waypoint:name:initials:x:y:z:color:disabled:type:set:rotate_on_tp:tp_yaw:visibility_type");
+            other.add("#");
+        }
+        List<String> result = new ArrayList<>(other.size() + waypoints.size() + 1);
+        boolean hasSets = false;
+        for (String line : other) {
+            if (line.startsWith(SETS)) {
+                hasSets = true;
+                List<String> sets = Arrays.asList(line.substring(SETS.length()).split(":"));
+                result.add(sets.contains(SET) ? line : line + ":" + SET);
+            } else {
+                result.add(line);
+            }
+        }
+        if (!hasSets) {
+            result.add(0, SETS + "gui.xaero_default:" + SET);
+        }
+        result.addAll(waypoints.values());
+        return result;
+    }
+
+    private static String line(String name, WaypointChange change) {
+        return String.join(":",
+                "waypoint",
+                name,
+                name.isEmpty() ? "X" : name.substring(0, 1).toUpperCase(Locale.ROOT),
+                String.valueOf((int) Math.floor(change.waypoint.location.x)),
+                String.valueOf((int) Math.floor(change.waypoint.location.y)),
+                String.valueOf((int) Math.floor(change.waypoint.location.z)),
+                String.valueOf(change.group == null ? PRIVATE_COLOR : GROUP_COLOR),
+                "false",
+                "0",
+                SET,
+                "false",
+                "0",
+                "0");
+    }
+
+    /**
+     * Xaero's Minimap separates fields with colons and stores colons in names as two section signs
+     */
+    private static String escape(String name) {
+        return name.replace(":", "§§");
+    }
+
+    /**
+     * @return server Collar is connected to, or else the server it was last connected to
+     */
+    private Optional<String> server() {
+        Optional<String> server = WaypointSync.server(collarService);
+        if (server.isPresent()) {
+            lastServer = server.get();
+            return server;
+        }
+        return Optional.ofNullable(lastServer);
+    }
+}
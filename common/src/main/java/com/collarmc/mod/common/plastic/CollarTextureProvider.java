@@ -1,33 +1,27 @@
 package com.collarmc.mod.common.plastic;
 
 import com.collarmc.client.events.CollarStateChangedEvent;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.collarmc.client.Collar;
-import com.collarmc.client.api.textures.Texture;
+import com.collarmc.mod.common.workers.WorkerPool;
+import com.collarmc.plastic.Plastic;
 import com.collarmc.plastic.player.Player;
 import com.collarmc.plastic.ui.TextureProvider;
 import com.collarmc.plastic.ui.TextureType;
 import com.collarmc.pounce.Subscribe;
 
 import java.awt.image.BufferedImage;
-import java.util.Objects;
+import java.io.File;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 public class CollarTextureProvider implements TextureProvider {
 
-    private static final Cache<TextureKey, CompletableFuture<Texture>> TEXTURE_CACHE = CacheBuilder.newBuilder()
-            .expireAfterAccess(5, TimeUnit.MINUTES)
-            .initialCapacity(100)
-            .build();
-
-    private Collar collar;
+    private final TextureCache cache = TextureCache.fromProperties();
+    private volatile Collar collar;
 
     @Override
     public CompletableFuture<Optional<BufferedImage>> getTexture(Player player, TextureType type, BufferedImage defaultTexture) {
+        Collar collar = this.collar;
         if (collar == null || !collar.getState().equals(Collar.State.CONNECTED)) {
             return CompletableFuture.completedFuture(Optional.empty());
         }
@@ -42,7 +36,25 @@ public class CollarTextureProvider implements TextureProvider {
             default:
                 throw new IllegalStateException("unknown type " + type);
         }
+        return cache.get(new TextureKey(player.id(), type), () -> load(collar, player, textureType))
+                .thenApply(image -> image.isPresent() ? image : Optional.ofNullable(defaultTexture));
+    }
+
+    /**
+     * @param workers to read and write cached textures on
+     */
+    public void useWorkers(WorkerPool workers) {
+        cache.useWorkers(workers);
+    }
 
+    /**
+     * @return cache metrics
+     */
+    public TextureCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private static CompletableFuture<Optional<BufferedImage>> load(Collar collar, Player player, com.collarmc.api.textures.TextureType textureType) {
         return collar.identities().resolvePlayer(player.id())
                 .thenComposeAsync(thePlayer -> {
                     if (thePlayer.isPresent()) {
@@ -50,22 +62,14 @@ public class CollarTextureProvider implements TextureProvider {
                                 .thenComposeAsync(textureOptional -> {
                                     if (textureOptional.isPresent()) {
                                         CompletableFuture<Optional<BufferedImage>> result = new CompletableFuture<>();
-                                        textureOptional.ifPresent(texture -> {
-                                            texture.loadImage(bufferedImageOptional -> {
-                                                if (bufferedImageOptional.isPresent()) {
-                                                    result.complete(bufferedImageOptional);
-                                                } else {
-                                                    result.complete(Optional.ofNullable(defaultTexture));
-                                                }
-                                            });
-                                        });
+                                        textureOptional.ifPresent(texture -> texture.loadImage(result::complete));
                                         return result;
                                     } else {
-                                        return CompletableFuture.completedFuture(Optional.ofNullable(defaultTexture));
+                                        return CompletableFuture.completedFuture(Optional.empty());
                                     }
                                 });
                     } else {
-                        return CompletableFuture.completedFuture(Optional.ofNullable(defaultTexture));
+                        return CompletableFuture.completedFuture(Optional.empty());
                     }
                 });
     }
@@ -74,30 +78,10 @@ public class CollarTextureProvider implements TextureProvider {
     public void onConnected(CollarStateChangedEvent event) {
         collar = event.collar;
         if (event.state == Collar.State.CONNECTED) {
-            TEXTURE_CACHE.invalidateAll();
-        }
-    }
-
-    private static final class TextureKey {
-        public final UUID id;
-        public final TextureType type;
-
-        public TextureKey(UUID id, TextureType type) {
-            this.id = id;
-            this.type = type;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            TextureKey that = (TextureKey) o;
-            return id.equals(that.id) && type == that.type;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(id, type);
+            cache.useDisk(DiskTextureCache.fromProperties(new File(Plastic.getPlastic().home(), "collar/textures")));
+            cache.invalidateAll();
+            // Capes looked up while disconnected were reported absent
+            Plastic.getPlastic().world.capes.clear();
         }
     }
 }
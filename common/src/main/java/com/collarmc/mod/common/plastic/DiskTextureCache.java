@@ -0,0 +1,189 @@
+package com.collarmc.mod.common.plastic;
+
+import com.collarmc.utils.Utils;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.Hashing;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores decoded textures on disk so they survive restarts.
+ * Images are stored once per content hash, and each texture key has a small metadata file pointing at its image
+ * along with when it should be fetched again.
+ */
+final class DiskTextureCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(DiskTextureCache.class.getName());
+    private static final String METADATA_SUFFIX = ".json";
+    private static final String IMAGE_SUFFIX = ".png";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Temporary files older than this are left over from a write that never finished
+     */
+    private static final long TEMP_FILE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final File directory;
+    private final long ttlMillis;
+
+    /**
+     * Writes share the lock and pruning holds it alone, so an image a write found on disk is not pruned under it
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    DiskTextureCache(File directory, long ttlMillis) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @param directory to store textures in
+     * @return cache using {@code collar.textures.diskTtlHours} as the expiry, defaulting to a day
+     */
+    static DiskTextureCache fromProperties(File directory) {
+        return new DiskTextureCache(directory, TimeUnit.HOURS.toMillis(Long.getLong("collar.textures.diskTtlHours", 24)));
+    }
+
+    /**
+     * @param key of texture
+     * @return texture if it is on disk and has not expired
+     */
+    Optional<BufferedImage> read(TextureKey key) {
+        File metadataFile = metadataFile(key);
+        if (!metadataFile.exists()) {
+            return Optional.empty();
+        }
+        try {
+            Metadata metadata = Utils.jsonMapper().readValue(metadataFile, Metadata.class);
+            if (metadata.expiresAt < System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            File imageFile = imageFile(metadata.hash);
+            if (!imageFile.exists()) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(ImageIO.read(imageFile));
+        } catch (IOException e) {
+            LOGGER.warn("Could not read cached texture " + key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param key of texture
+     * @param image to store
+     */
+    void write(TextureKey key, BufferedImage image) {
+        lock.readLock().lock();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, "png", bytes)) {
+                throw new IOException("no png writer");
+            }
+            byte[] contents = bytes.toByteArray();
+            String hash = Hashing.sha256().hashBytes(contents).toString();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("could not create " + directory);
+            }
+            File imageFile = imageFile(hash);
+            if (!imageFile.exists()) {
+                File temp = File.createTempFile(hash, TEMP_SUFFIX, directory);
+                Files.copy(new ByteArrayInputStream(contents), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp.toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            File temp = File.createTempFile(key.toString(), TEMP_SUFFIX, directory);
+            Utils.jsonMapper().writeValue(temp, new Metadata(hash, System.currentTimeMillis() + ttlMillis));
+            Files.move(temp.toPath(), metadataFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache texture " + key, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes expired or unreadable metadata, images no metadata points at any more and temporary files left behind by
+     * interrupted writes
+     */
+    void prune() {
+        lock.writeLock().lock();
+        try {
+            pruneLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void pruneLocked() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> referenced = new HashSet<>();
+        List<File> images = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(METADATA_SUFFIX)) {
+                try {
+                    Metadata metadata = Utils.jsonMapper().readValue(file, Metadata.class);
+                    if (metadata.expiresAt >= now) {
+                        referenced.add(metadata.hash + IMAGE_SUFFIX);
+                        continue;
+                    }
+                } catch (IOException e) {
+                    LOGGER.warn("Deleting unreadable cached texture " + file, e);
+                }
+                delete(file);
+            } else if (name.endsWith(IMAGE_SUFFIX)) {
+                images.add(file);
+            } else if (name.endsWith(TEMP_SUFFIX) && now - file.lastModified() > TEMP_FILE_AGE_MILLIS) {
+                delete(file);
+            }
+        }
+        for (File image : images) {
+            if (!referenced.contains(image.getName())) {
+                delete(image);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            LOGGER.warn("Could not delete cached texture " + file);
+        }
+    }
+
+    private File metadataFile(TextureKey key) {
+        return new File(directory, key + METADATA_SUFFIX);
+    }
+
+    private File imageFile(String hash) {
+        return new File(directory, hash + IMAGE_SUFFIX);
+    }
+
+    private static final class Metadata {
+        @JsonProperty("hash")
+        public final String hash;
+        @JsonProperty("expiresAt")
+        public final long expiresAt;
+
+        public Metadata(@JsonProperty("hash") String hash, @JsonProperty("expiresAt") long expiresAt) {
+            this.hash = hash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.collarmc.mod.common.plastic;
+
+import com.collarmc.mod.common.workers.WorkerPool;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decoded textures kept in memory, falling back to a {@link DiskTextureCache} and only then to the network.
+ * Concurrent requests for the same texture share a single load.
+ */
+public final class TextureCache {
+
+    private final Cache<TextureKey, BufferedImage> memory;
+    private final ConcurrentMap<TextureKey, CompletableFuture<Optional<BufferedImage>>> loading = new ConcurrentHashMap<>();
+    private volatile DiskTextureCache disk;
+    private volatile WorkerPool workers;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    /**
+     * @param memoryBudgetBytes maximum size of the decoded images held in memory
+     */
+    public TextureCache(long memoryBudgetBytes) {
+        this.memory = CacheBuilder.newBuilder()
+                .maximumWeight(memoryBudgetBytes)
+                .weigher((TextureKey key, BufferedImage image) -> sizeOf(image))
+                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * @return cache sized by {@code collar.textures.memoryBudget} in bytes, defaulting to 32MB
+     */
+    public static TextureCache fromProperties() {
+        return new TextureCache(Long.getLong("collar.textures.memoryBudget", 32 * 1024 * 1024));
+    }
+
+    /**
+     * @param workers to read and write the disk cache on, which is not used until they are set
+     */
+    void useWorkers(WorkerPool workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Expired textures are pruned from the disk when it is set
+     * @param disk to fall back to before loading textures
+     */
+    void useDisk(DiskTextureCache disk) {
+        this.disk = disk;
+        WorkerPool workers = this.workers;
+        if (workers != null) {
+            workers.execute(disk::prune);
+        }
+    }
+
+    /**
+     * @param key of texture
+     * @param loader used when the texture is neither in memory or on disk
+     * @return texture, or empty if the loader did not find one
+     */
+    public CompletableFuture<Optional<BufferedImage>> get(TextureKey key, Supplier<CompletableFuture<Optional<BufferedImage>>> loader) {
+        BufferedImage image = memory.getIfPresent(key);
+        if (image != null) {
+            memoryHits.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.of(image));
+        }
+        CompletableFuture<Optional<BufferedImage>> result = new CompletableFuture<>();
+        CompletableFuture<Optional<BufferedImage>> inFlight = loading.putIfAbsent(key, result);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        WorkerPool workers = this.workers;
+        DiskTextureCache disk = workers == null ? null : this.disk;
+        CompletableFuture<Optional<BufferedImage>> read = disk == null
+                ? CompletableFuture.completedFuture(Optional.empty())
+                // A read the pool had to drop is treated as a miss
+                : workers.supply(() -> disk.read(key)).exceptionally(e -> Optional.empty());
+        read
+                .thenCompose(cached -> {
+                    if (cached.isPresent()) {
+                        diskHits.incrementAndGet();
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    misses.incrementAndGet();
+                    return loader.get().thenApply(loaded -> {
+                        if (disk != null) {
+                            loaded.ifPresent(loadedImage -> workers.execute(() -> disk.write(key, loadedImage)));
+                        }
+                        return loaded;
+                    });
+                })
+                .whenComplete((loaded, e) -> {
+                    // Publish to memory before the load is forgotten, so no request can miss both
+                    if (loaded != null) {
+                        loaded.ifPresent(loadedImage -> {
+                            memoryBytes.addAndGet(sizeOf(loadedImage));
+                            memory.put(key, loadedImage);
+                        });
+                    }
+                    loading.remove(key, result);
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(loaded);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Forget all textures held in memory. Textures on disk are kept until they expire, and are pruned the next time the
+     * disk is set.
+     */
+    public void invalidateAll() {
+        memory.invalidateAll();
+    }
+
+    /**
+     * @return snapshot of the cache metrics
+     */
+    public Stats stats() {
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(), memory.size(), memoryBytes.get());
+    }
+
+    private void onRemoval(RemovalNotification<TextureKey, BufferedImage> notification) {
+        if (notification.getValue() != null) {
+            memoryBytes.addAndGet(-sizeOf(notification.getValue()));
+        }
+        if (notification.wasEvicted()) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return approximate size of the decoded image, as ARGB
+     */
+    private static int sizeOf(BufferedImage image) {
+        return image.getWidth() * image.getHeight() * 4;
+    }
+
+    public static final class Stats {
+        public final long memoryHits;
+        public final long diskHits;
+        public final long misses;
+        public final long evictions;
+        public final long memoryEntries;
+        public final long memoryBytes;
+
+        public Stats(long memoryHits, long diskHits, long misses, long evictions, long memoryEntries, long memoryBytes) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.memoryEntries = memoryEntries;
+            this.memoryBytes = memoryBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "memory hits " + memoryHits
+                    + " disk hits " + diskHits
+                    + " misses " + misses
+                    + " evictions " + evictions
+                    + " entries " + memoryEntries
+                    + " bytes " + memoryBytes;
+        }
+    }
+}
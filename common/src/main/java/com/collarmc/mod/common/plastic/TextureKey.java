@@ -0,0 +1,38 @@
+package com.collarmc.mod.common.plastic;
+
+import com.collarmc.plastic.ui.TextureType;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Identifies a players texture in the {@link TextureCache}
+ */
+public final class TextureKey {
+    public final UUID id;
+    public final TextureType type;
+
+    public TextureKey(UUID id, TextureType type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TextureKey that = (TextureKey) o;
+        return id.equals(that.id) && type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, type);
+    }
+
+    @Override
+    public String toString() {
+        return id + "-" + type.name().toLowerCase(Locale.ROOT);
+    }
+}
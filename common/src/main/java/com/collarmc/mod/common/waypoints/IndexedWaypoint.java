@@ -0,0 +1,39 @@
+package com.collarmc.mod.common.waypoints;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.waypoints.Waypoint;
+
+/**
+ * A waypoint held by {@link WaypointIndex}
+ */
+public final class IndexedWaypoint {
+
+    public final Waypoint waypoint;
+
+    /**
+     * Group the waypoint is shared with, or null if it is private
+     */
+    public final Group group;
+
+    public final double x;
+    public final double y;
+    public final double z;
+
+    public IndexedWaypoint(Waypoint waypoint, Group group) {
+        this.waypoint = waypoint;
+        this.group = group;
+        this.x = waypoint.location.x;
+        this.y = waypoint.location.y;
+        this.z = waypoint.location.z;
+    }
+
+    /**
+     * @return squared distance to the point
+     */
+    public double distanceSquared(double x, double y, double z) {
+        double dx = this.x - x;
+        double dy = this.y - y;
+        double dz = this.z - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
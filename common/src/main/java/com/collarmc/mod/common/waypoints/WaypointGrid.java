@@ -0,0 +1,174 @@
+package com.collarmc.mod.common.waypoints;
+
+import java.util.*;
+
+/**
+ * Waypoints of one dimension bucketed into square columns of {@link #CELL_SIZE} blocks.
+ * Queries visit only the cells they overlap, unless that would be more cells than there are waypoints, in which case
+ * every waypoint is checked instead. Not thread safe.
+ */
+final class WaypointGrid {
+
+    static final int CELL_SIZE = 64;
+
+    private final Map<Long, List<IndexedWaypoint>> cells = new HashMap<>();
+    private final Map<UUID, IndexedWaypoint> waypoints = new HashMap<>();
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellZ = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellZ = Integer.MIN_VALUE;
+
+    void put(IndexedWaypoint waypoint) {
+        remove(waypoint.waypoint.id);
+        waypoints.put(waypoint.waypoint.id, waypoint);
+        int cellX = cell(waypoint.x);
+        int cellZ = cell(waypoint.z);
+        cells.computeIfAbsent(key(cellX, cellZ), key -> new ArrayList<>(2)).add(waypoint);
+        minCellX = Math.min(minCellX, cellX);
+        minCellZ = Math.min(minCellZ, cellZ);
+        maxCellX = Math.max(maxCellX, cellX);
+        maxCellZ = Math.max(maxCellZ, cellZ);
+    }
+
+    /**
+     * The bounds of the grid are not shrunk, so removing waypoints never makes queries miss any
+     */
+    void remove(UUID id) {
+        IndexedWaypoint waypoint = waypoints.remove(id);
+        if (waypoint == null) {
+            return;
+        }
+        long key = key(cell(waypoint.x), cell(waypoint.z));
+        List<IndexedWaypoint> cell = cells.get(key);
+        cell.remove(waypoint);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    boolean isEmpty() {
+        return waypoints.isEmpty();
+    }
+
+    /**
+     * Adds every waypoint whose column overlaps the box to the results
+     */
+    void box(double minX, double minZ, double maxX, double maxZ, List<IndexedWaypoint> results) {
+        int fromX = Math.max(cell(minX), minCellX);
+        int fromZ = Math.max(cell(minZ), minCellZ);
+        int toX = Math.min(cell(maxX), maxCellX);
+        int toZ = Math.min(cell(maxZ), maxCellZ);
+        if (fromX > toX || fromZ > toZ) {
+            return;
+        }
+        if ((long) (toX - fromX + 1) * (toZ - fromZ + 1) > waypoints.size()) {
+            for (IndexedWaypoint waypoint : waypoints.values()) {
+                if (waypoint.x >= minX && waypoint.x <= maxX && waypoint.z >= minZ && waypoint.z <= maxZ) {
+                    results.add(waypoint);
+                }
+            }
+            return;
+        }
+        for (int cellX = fromX; cellX <= toX; cellX++) {
+            for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                List<IndexedWaypoint> cell = cells.get(key(cellX, cellZ));
+                if (cell != null) {
+                    for (IndexedWaypoint waypoint : cell) {
+                        if (waypoint.x >= minX && waypoint.x <= maxX && waypoint.z >= minZ && waypoint.z <= maxZ) {
+                            results.add(waypoint);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every waypoint within the radius of the point to the results
+     */
+    void within(double x, double y, double z, double radius, List<IndexedWaypoint> results) {
+        int start = results.size();
+        box(x - radius, z - radius, x + radius, z + radius, results);
+        double radiusSquared = radius * radius;
+        // Drop the corners of the box, keeping the order of what is left
+        int kept = start;
+        for (int i = start; i < results.size(); i++) {
+            IndexedWaypoint waypoint = results.get(i);
+            if (waypoint.distanceSquared(x, y, z) <= radiusSquared) {
+                results.set(kept++, waypoint);
+            }
+        }
+        results.subList(kept, results.size()).clear();
+    }
+
+    /**
+     * Searches rings of cells outwards from the point until no unvisited cell can hold anything nearer than the
+     * furthest waypoint found so far
+     * @return up to count waypoints, nearest first
+     */
+    List<IndexedWaypoint> nearest(double x, double y, double z, int count) {
+        if (count <= 0 || waypoints.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Comparator<IndexedWaypoint> nearestFirst = Comparator.comparingDouble(waypoint -> waypoint.distanceSquared(x, y, z));
+        PriorityQueue<IndexedWaypoint> found = new PriorityQueue<>(nearestFirst.reversed());
+        int centerX = cell(x);
+        int centerZ = cell(z);
+        int maxRing = Math.max(
+                Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+                Math.max(Math.abs(centerZ - minCellZ), Math.abs(maxCellZ - centerZ)));
+        long visited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (found.size() == count) {
+                // Nearest any waypoint in this ring can be, horizontally
+                double edge = (ring - 1) * (double) CELL_SIZE;
+                IndexedWaypoint furthest = found.peek();
+                if (edge > 0 && edge * edge > furthest.distanceSquared(x, y, z)) {
+                    break;
+                }
+            }
+            visited += ring == 0 ? 1 : 8L * ring;
+            if (visited > waypoints.size()) {
+                // Sparse grid, checking every waypoint is cheaper than visiting the remaining cells
+                found.clear();
+                for (IndexedWaypoint waypoint : waypoints.values()) {
+                    offer(found, waypoint, count, nearestFirst);
+                }
+                break;
+            }
+            for (int cellX = centerX - ring; cellX <= centerX + ring; cellX++) {
+                for (int cellZ = centerZ - ring; cellZ <= centerZ + ring; cellZ++) {
+                    if (Math.abs(cellX - centerX) != ring && Math.abs(cellZ - centerZ) != ring) {
+                        continue;
+                    }
+                    List<IndexedWaypoint> cell = cells.get(key(cellX, cellZ));
+                    if (cell != null) {
+                        for (IndexedWaypoint waypoint : cell) {
+                            offer(found, waypoint, count, nearestFirst);
+                        }
+                    }
+                }
+            }
+        }
+        List<IndexedWaypoint> nearest = new ArrayList<>(found);
+        nearest.sort(nearestFirst);
+        return nearest;
+    }
+
+    private static void offer(PriorityQueue<IndexedWaypoint> found, IndexedWaypoint waypoint, int count, Comparator<IndexedWaypoint> nearestFirst) {
+        if (found.size() < count) {
+            found.add(waypoint);
+        } else if (nearestFirst.compare(waypoint, found.peek()) < 0) {
+            found.poll();
+            found.add(waypoint);
+        }
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
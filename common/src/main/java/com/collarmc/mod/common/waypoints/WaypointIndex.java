@@ -0,0 +1,168 @@
+package com.collarmc.mod.common.waypoints;
+
+import com.collarmc.api.groups.Group;
+import com.collarmc.api.location.Dimension;
+import com.collarmc.api.waypoints.Waypoint;
+import com.collarmc.client.Collar;
+import com.collarmc.client.api.groups.events.GroupJoinedEvent;
+import com.collarmc.client.api.groups.events.GroupLeftEvent;
+import com.collarmc.client.api.location.events.WaypointCreatedEvent;
+import com.collarmc.client.api.location.events.WaypointRemovedEvent;
+import com.collarmc.client.events.CollarStateChangedEvent;
+import com.collarmc.mod.common.CollarService;
+import com.collarmc.pounce.EventBus;
+import com.collarmc.pounce.Preference;
+import com.collarmc.pounce.Subscribe;
+
+import java.util.*;
+
+/**
+ * Private and group waypoints of the current player, bucketed by dimension into a grid of columns so that finding the
+ * waypoints near a point only looks at the columns around it.
+ * Waypoints are added and removed as they are created. Joining or leaving a group, or Collar changing state, reloads
+ * every waypoint from Collar the next time the index is queried.
+ */
+public final class WaypointIndex {
+
+    private final CollarService collarService;
+    private final Map<Dimension, WaypointGrid> grids = new EnumMap<>(Dimension.class);
+    private final Map<UUID, Dimension> dimensions = new HashMap<>();
+    private boolean dirty = true;
+    private long generation;
+
+    public WaypointIndex(EventBus eventBus, CollarService collarService) {
+        this.collarService = collarService;
+        eventBus.subscribe(this);
+    }
+
+    /**
+     * @param dimension to search
+     * @param x of point
+     * @param y of point
+     * @param z of point
+     * @param radius to search within
+     * @return waypoints within the radius of the point, in no particular order
+     */
+    public synchronized List<IndexedWaypoint> within(Dimension dimension, double x, double y, double z, double radius) {
+        List<IndexedWaypoint> results = new ArrayList<>();
+        WaypointGrid grid = grid(dimension);
+        if (grid != null) {
+            grid.within(x, y, z, radius, results);
+        }
+        return results;
+    }
+
+    /**
+     * @param dimension to search
+     * @param x of point
+     * @param y of point
+     * @param z of point
+     * @param count maximum number of waypoints
+     * @return the waypoints nearest to the point, nearest first
+     */
+    public synchronized List<IndexedWaypoint> nearest(Dimension dimension, double x, double y, double z, int count) {
+        WaypointGrid grid = grid(dimension);
+        return grid == null ? Collections.emptyList() : grid.nearest(x, y, z, count);
+    }
+
+    /**
+     * Finds the waypoints that may be inside a view, such as the bounds of a frustum
+     * @param dimension to search
+     * @param minX of box
+     * @param minZ of box
+     * @param maxX of box
+     * @param maxZ of box
+     * @param results to add every waypoint within the box to, at any height
+     */
+    public synchronized void box(Dimension dimension, double minX, double minZ, double maxX, double maxZ, List<IndexedWaypoint> results) {
+        WaypointGrid grid = grid(dimension);
+        if (grid != null) {
+            grid.box(minX, minZ, maxX, maxZ, results);
+        }
+    }
+
+    /**
+     * @return number that changes whenever a waypoint is added or removed
+     */
+    public synchronized long generation() {
+        if (dirty) {
+            reload();
+        }
+        return generation;
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onWaypointCreated(WaypointCreatedEvent event) {
+        if (!dirty) {
+            put(event.waypoint, event.group);
+            generation++;
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onWaypointRemoved(WaypointRemovedEvent event) {
+        if (!dirty) {
+            remove(event.waypoint.id);
+            generation++;
+        }
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onGroupJoined(GroupJoinedEvent event) {
+        dirty = true;
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onGroupLeft(GroupLeftEvent event) {
+        dirty = true;
+    }
+
+    @Subscribe(Preference.CALLER)
+    public synchronized void onStateChanged(CollarStateChangedEvent event) {
+        dirty = true;
+    }
+
+    private WaypointGrid grid(Dimension dimension) {
+        if (dirty) {
+            reload();
+        }
+        return grids.get(dimension);
+    }
+
+    private void reload() {
+        dirty = false;
+        grids.clear();
+        dimensions.clear();
+        generation++;
+        Optional<Collar> collar = collarService.getCollar();
+        if (!collar.isPresent()) {
+            return;
+        }
+        collar.get().location().privateWaypoints().forEach(waypoint -> put(waypoint, null));
+        collar.get().groups().groups().forEach(group -> {
+            collar.get().location().groupWaypoints(group).forEach(waypoint -> put(waypoint, group));
+        });
+    }
+
+    private void put(Waypoint waypoint, Group group) {
+        remove(waypoint.id);
+        Dimension dimension = waypoint.location.dimension;
+        if (dimension == null) {
+            return;
+        }
+        grids.computeIfAbsent(dimension, key -> new WaypointGrid()).put(new IndexedWaypoint(waypoint, group));
+        dimensions.put(waypoint.id, dimension);
+    }
+
+    private void remove(UUID id) {
+        Dimension dimension = dimensions.remove(id);
+        if (dimension == null) {
+            return;
+        }
+        WaypointGrid grid = grids.get(dimension);
+        grid.remove(id);
+        if (grid.isEmpty()) {
+            grids.remove(dimension);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.collarmc.mod.common.workers;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent task latencies in a fixed size ring so percentiles can be computed on demand
+ */
+final class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+
+    LatencyRecorder(int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    void record(long nanos) {
+        long index = recorded.getAndIncrement();
+        samples.set((int) (index % samples.length()), nanos);
+    }
+
+    /**
+     * @param percentiles to compute, between 0 and 1
+     * @return latency in nanoseconds for each requested percentile, or zeros when nothing was recorded
+     */
+    long[] percentiles(double... percentiles) {
+        int count = (int) Math.min(recorded.get(), samples.length());
+        long[] result = new long[percentiles.length];
+        if (count == 0) {
+            return result;
+        }
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        for (int i = 0; i < percentiles.length; i++) {
+            int index = (int) Math.ceil(percentiles[i] * count) - 1;
+            result[i] = sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package com.collarmc.mod.common.workers;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * What a {@link WorkerPool} does with a task when its queue is full
+ */
+public enum RejectionPolicy {
+    /**
+     * Throw {@link java.util.concurrent.RejectedExecutionException} back to the submitter
+     */
+    ABORT(new ThreadPoolExecutor.AbortPolicy()),
+    /**
+     * Silently drop the new task
+     */
+    DISCARD(new ThreadPoolExecutor.DiscardPolicy()),
+    /**
+     * Drop the oldest queued task to make room for the new one
+     */
+    DISCARD_OLDEST(new ThreadPoolExecutor.DiscardOldestPolicy()),
+    /**
+     * Run the task on the submitting thread
+     */
+    CALLER_RUNS(new ThreadPoolExecutor.CallerRunsPolicy());
+
+    final RejectedExecutionHandler handler;
+
+    RejectionPolicy(RejectedExecutionHandler handler) {
+        this.handler = handler;
+    }
+}
@@ -0,0 +1,203 @@
+package com.collarmc.mod.common.workers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded thread pool that keeps counters about its own saturation
+ */
+public final class WorkerPool implements Executor {
+
+    private static final Logger LOGGER = LogManager.getLogger(WorkerPool.class.getName());
+
+    public final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+    private final LatencyRecorder latency = new LatencyRecorder(1024);
+
+    public WorkerPool(String name, WorkerPoolConfiguration configuration) {
+        this.name = name;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                configuration.coreSize,
+                configuration.maxSize,
+                configuration.keepAliveSeconds,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(configuration.queueSize),
+                r -> {
+                    Thread thread = new Thread(r);
+                    thread.setName(name + " #" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, pool) -> {
+                    long count = rejected.incrementAndGet();
+                    // Only on powers of two, as a flooded pool rejects on every submission
+                    if ((count & (count - 1)) == 0) {
+                        LOGGER.warn(name + " is saturated, rejected " + count + " tasks so far (" + configuration.rejectionPolicy + ")");
+                    }
+                    reject(configuration.rejectionPolicy, r, pool);
+                });
+        if (configuration.keepAliveSeconds > 0) {
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Runs the task on the pool. Latency is measured from submission to completion.
+     * @param task to run
+     * @throws RejectedExecutionException if the pool is saturated and its policy is {@link RejectionPolicy#ABORT}
+     */
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(new Task(task, null));
+    }
+
+    /**
+     * Computes a value on the pool.
+     * The future is cancelled if the pool drops the task, so callers are never left waiting on work that will not run.
+     * @param supplier of the value
+     * @param <T> type of value
+     * @return future of the value
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(new Task(() -> {
+                try {
+                    result.complete(supplier.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, () -> result.cancel(false)));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return current counters
+     */
+    public Stats stats() {
+        long[] percentiles = latency.percentiles(0.5, 0.99);
+        return new Stats(
+                name,
+                executor.getActiveCount(),
+                executor.getPoolSize(),
+                executor.getMaximumPoolSize(),
+                executor.getQueue().size(),
+                executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+                executor.getCompletedTaskCount(),
+                rejected.get(),
+                TimeUnit.NANOSECONDS.toMillis(percentiles[0]),
+                TimeUnit.NANOSECONDS.toMillis(percentiles[1])
+        );
+    }
+
+    /**
+     * Stops accepting work and lets queued tasks finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Applies the policy, telling any task that is dropped that it will not run
+     */
+    private static void reject(RejectionPolicy policy, Runnable task, ThreadPoolExecutor pool) {
+        switch (policy) {
+            case DISCARD:
+                discarded(task);
+                break;
+            case DISCARD_OLDEST:
+                if (pool.isShutdown()) {
+                    discarded(task);
+                } else {
+                    discarded(pool.getQueue().poll());
+                    pool.execute(task);
+                }
+                break;
+            default:
+                policy.handler.rejectedExecution(task, pool);
+        }
+    }
+
+    private static void discarded(Runnable task) {
+        if (task instanceof Task) {
+            ((Task) task).discarded();
+        }
+    }
+
+    private final class Task implements Runnable {
+        private final Runnable task;
+        private final Runnable onDiscard;
+        private final long submittedAt = System.nanoTime();
+
+        Task(Runnable task, Runnable onDiscard) {
+            this.task = task;
+            this.onDiscard = onDiscard;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.error(name + " task failed", e);
+            } finally {
+                latency.record(System.nanoTime() - submittedAt);
+            }
+        }
+
+        void discarded() {
+            if (onDiscard != null) {
+                onDiscard.run();
+            }
+        }
+    }
+
+    public static final class Stats {
+        public final String name;
+        public final int active;
+        public final int threads;
+        public final int maxThreads;
+        public final int queued;
+        public final int queueCapacity;
+        public final long completed;
+        public final long rejected;
+        public final long p50Millis;
+        public final long p99Millis;
+
+        public Stats(String name, int active, int threads, int maxThreads, int queued, int queueCapacity, long completed, long rejected, long p50Millis, long p99Millis) {
+            this.name = name;
+            this.active = active;
+            this.threads = threads;
+            this.maxThreads = maxThreads;
+            this.queued = queued;
+            this.queueCapacity = queueCapacity;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        /**
+         * @return if every thread is busy and the queue is full
+         */
+        public boolean isSaturated() {
+            return active >= maxThreads && queued >= queueCapacity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: active %d/%d, queued %d/%d, completed %d, rejected %d, p50 %dms, p99 %dms",
+                    name, active, maxThreads, queued, queueCapacity, completed, rejected, p50Millis, p99Millis);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.collarmc.mod.common.workers;
+
+/**
+ * Sizing of a {@link WorkerPool}.
+ * The defaults can be overridden with system properties named {@code collar.workers.<pool>.<setting>},
+ * e.g. {@code -Dcollar.workers.background.max=8}
+ */
+public final class WorkerPoolConfiguration {
+    public final int coreSize;
+    public final int maxSize;
+    public final int queueSize;
+    public final long keepAliveSeconds;
+    public final RejectionPolicy rejectionPolicy;
+
+    public WorkerPoolConfiguration(int coreSize, int maxSize, int queueSize, long keepAliveSeconds, RejectionPolicy rejectionPolicy) {
+        if (coreSize < 0 || maxSize < 1 || maxSize < coreSize) {
+            throw new IllegalArgumentException("invalid pool size core " + coreSize + " max " + maxSize);
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("invalid queue size " + queueSize);
+        }
+        this.coreSize = coreSize;
+        this.maxSize = maxSize;
+        this.queueSize = queueSize;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * Connect and disconnect work. Only one connection operation runs at a time, so a single thread is enough
+     * and nothing queued here ever waits behind UI work.
+     * @return configuration
+     */
+    public static WorkerPoolConfiguration connection() {
+        return fromProperties("connection", 1, 1, 8, RejectionPolicy.ABORT);
+    }
+
+    /**
+     * Everything else, e.g. status messages, suggestions and texture files. When flooded the oldest tasks are dropped.
+     * The executor only grows past its core threads once the queue is full, so all threads are core threads, which time
+     * out when idle.
+     * @return configuration
+     */
+    public static WorkerPoolConfiguration background() {
+        return fromProperties("background", 4, 4, 256, RejectionPolicy.DISCARD_OLDEST);
+    }
+
+    private static WorkerPoolConfiguration fromProperties(String pool, int coreSize, int maxSize, int queueSize, RejectionPolicy rejectionPolicy) {
+        String prefix = "collar.workers." + pool + ".";
+        String policy = System.getProperty(prefix + "rejection");
+        int max = Integer.getInteger(prefix + "max", maxSize);
+        return new WorkerPoolConfiguration(
+                Integer.getInteger(prefix + "core", Math.min(coreSize, max)),
+                max,
+                Integer.getInteger(prefix + "queue", queueSize),
+                Long.getLong(prefix + "keepAlive", 60),
+                policy == null ? rejectionPolicy : RejectionPolicy.valueOf(policy.toUpperCase())
+        );
+    }
+}
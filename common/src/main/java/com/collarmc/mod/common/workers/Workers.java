@@ -0,0 +1,33 @@
+package com.collarmc.mod.common.workers;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The pools Collar runs its background work on
+ */
+public final class Workers {
+
+    /**
+     * Connect and disconnect
+     */
+    public final WorkerPool connection;
+
+    /**
+     * UI messages and other work that can be dropped when flooded
+     */
+    public final WorkerPool background;
+
+    public Workers() {
+        this.connection = new WorkerPool("Collar Connection", WorkerPoolConfiguration.connection());
+        this.background = new WorkerPool("Collar Worker", WorkerPoolConfiguration.background());
+    }
+
+    /**
+     * @return every pool
+     */
+    public List<WorkerPool> all() {
+        return ImmutableList.of(connection, background);
+    }
+}
@@ -2,8 +2,10 @@ package com.collarmc.mod.forge;
 
 import com.collarmc.client.plugin.Plugins;
 import com.collarmc.mod.common.CollarService;
+import com.collarmc.mod.common.commands.CommandCache;
 import com.collarmc.mod.common.commands.Commands;
 import com.collarmc.mod.common.events.CollarModInitializedEvent;
+import com.collarmc.mod.common.events.ProfilingEventBus;
 import com.collarmc.mod.common.features.messaging.Messages;
 import com.collarmc.mod.common.plastic.CollarTextureProvider;
 import com.collarmc.mod.forge.journeymap.JourneyMapService;
@@ -11,13 +13,18 @@ import com.collarmc.plastic.Plastic;
 import com.collarmc.plastic.chat.ChatService;
 import com.collarmc.plastic.forge.ForgeCommand;
 import com.collarmc.plastic.forge.ForgePlastic;
+import com.collarmc.plastic.forge.ForgePlayer;
+import com.collarmc.plastic.forge.ForgeWorld;
 import com.collarmc.pounce.EventBus;
 import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.resources.IReloadableResourceManager;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.client.event.ClientChatEvent;
 import net.minecraftforge.client.event.RenderPlayerEvent;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventHandler;
@@ -46,7 +53,7 @@ public class CollarForgeClient
 
     private static final Plugins PLUGINS = new Plugins();
     private static Plastic PLASTIC;
-    public static final EventBus EVENT_BUS = new EventBus(Runnable::run);
+    public static final EventBus EVENT_BUS = ProfilingEventBus.create(Runnable::run);
 
     private CollarService collarService;
     private JourneyMapService journeyMapService;
@@ -58,15 +65,22 @@ public class CollarForgeClient
         CollarTextureProvider textureProvider = new CollarTextureProvider();
         EVENT_BUS.subscribe(textureProvider);
         PLASTIC = new ForgePlastic(textureProvider, EVENT_BUS);
+        ((IReloadableResourceManager) Minecraft.getMinecraft().getResourceManager()).registerReloadListener(resourceManager -> {
+            ForgePlayer.invalidateAvatars();
+            if (journeyMapService != null) {
+                journeyMapService.invalidateAvatars();
+            }
+        });
         collarService = new CollarService(PLASTIC, EVENT_BUS, PLUGINS);
+        textureProvider.useWorkers(collarService.workers.background);
         // Journey Map integration
         initJourneyMap();
         // Setup command system
         CommandDispatcher<CollarService> dispatcher = new CommandDispatcher<>();
         Messages messages = new Messages(Plastic.getPlastic(), collarService);
         Commands<CollarService> commands = new Commands<>(collarService, messages, PLASTIC, false);
-        commands.register(dispatcher);
-        ClientCommandHandler.instance.registerCommand(new ForgeCommand<>("collar", collarService, dispatcher));
+        CommandCache<CollarService> commandCache = commands.register(dispatcher);
+        ClientCommandHandler.instance.registerCommand(new ForgeCommand<>("collar", collarService, dispatcher, commandCache));
     }
 
     @EventHandler
@@ -89,6 +103,13 @@ public class CollarForgeClient
         PLASTIC.world.onWorldLoaded();
     }
 
+    @SubscribeEvent
+    public void onEntityJoinedWorld(EntityJoinWorldEvent event) {
+        if (event.getWorld().isRemote && event.getEntity() instanceof EntityPlayer) {
+            ((ForgeWorld) PLASTIC.world).onPlayerEntityJoined((EntityPlayer) event.getEntity());
+        }
+    }
+
     @SubscribeEvent
     public void connected(ClientConnectedToServerEvent connected) {
         PLASTIC.onClientConnected();
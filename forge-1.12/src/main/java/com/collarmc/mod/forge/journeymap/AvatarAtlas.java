@@ -0,0 +1,124 @@
+package com.collarmc.mod.forge.journeymap;
+
+import com.collarmc.plastic.player.Player;
+import journeymap.client.api.model.MapImage;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Marker icons of player avatars, packed into one shared atlas image.
+ * Each avatar is decoded once and drawn into a free slot of the atlas, evicting the least recently used avatar when
+ * the atlas is full. Icons are regions of the atlas. The atlas is copied before a slot is drawn into once icons have been
+ * handed out for it, so an icon never changes under a marker that is already showing it.
+ */
+final class AvatarAtlas {
+
+    /**
+     * Width and height of an avatar in the atlas
+     */
+    static final int AVATAR_SIZE = 16;
+
+    private static final int ATLAS_SIZE = 256;
+    private static final int COLUMNS = ATLAS_SIZE / AVATAR_SIZE;
+    private static final int SLOTS = COLUMNS * COLUMNS;
+
+    private final Map<UUID, Slot> slots = new LinkedHashMap<>(SLOTS, 0.75f, true);
+    private final Deque<Integer> free = new ArrayDeque<>(SLOTS);
+    private final Set<UUID> decoding = ConcurrentHashMap.newKeySet();
+    private BufferedImage atlas = new BufferedImage(ATLAS_SIZE, ATLAS_SIZE, BufferedImage.TYPE_INT_ARGB);
+    private boolean shared;
+
+    AvatarAtlas() {
+        for (int i = 0; i < SLOTS; i++) {
+            free.add(i);
+        }
+    }
+
+    /**
+     * @param player to get icon of
+     * @return icon of the players avatar, or empty while the avatar is decoded for the first time
+     */
+    Optional<MapImage> icon(Player player) {
+        synchronized (this) {
+            Slot slot = slots.get(player.id());
+            if (slot != null) {
+                if (slot.atlas != atlas) {
+                    slot.atlas = atlas;
+                    slot.icon = new MapImage(atlas, slot.x(), slot.y(), AVATAR_SIZE, AVATAR_SIZE, 0xFFFFFF, 1f);
+                }
+                shared = true;
+                return Optional.of(slot.icon);
+            }
+        }
+        if (decoding.add(player.id())) {
+            try {
+                player.avatar(avatar -> {
+                    put(player.id(), avatar);
+                    decoding.remove(player.id());
+                });
+            } catch (RuntimeException e) {
+                decoding.remove(player.id());
+                throw e;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Forgets every avatar, such as when resources were reloaded and skins may have changed. Icons already handed out
+     * keep showing the old avatars until they are requested again.
+     */
+    synchronized void invalidateAll() {
+        slots.values().forEach(slot -> free.add(slot.index));
+        slots.clear();
+    }
+
+    private synchronized void put(UUID id, BufferedImage avatar) {
+        Slot previous = slots.remove(id);
+        if (previous != null) {
+            free.add(previous.index);
+        }
+        if (free.isEmpty()) {
+            Iterator<Slot> eldest = slots.values().iterator();
+            free.add(eldest.next().index);
+            eldest.remove();
+        }
+        if (shared) {
+            // Icons already handed out keep drawing from the previous copy
+            BufferedImage copy = new BufferedImage(ATLAS_SIZE, ATLAS_SIZE, BufferedImage.TYPE_INT_ARGB);
+            copy.getRaster().setRect(atlas.getRaster());
+            atlas = copy;
+            shared = false;
+        }
+        Slot slot = new Slot(free.poll());
+        Graphics2D graphics = atlas.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(avatar, slot.x(), slot.y(), AVATAR_SIZE, AVATAR_SIZE, null);
+        } finally {
+            graphics.dispose();
+        }
+        slots.put(id, slot);
+    }
+
+    private static final class Slot {
+        public final int index;
+        public BufferedImage atlas;
+        public MapImage icon;
+
+        public Slot(int index) {
+            this.index = index;
+        }
+
+        public int x() {
+            return (index % COLUMNS) * AVATAR_SIZE;
+        }
+
+        public int y() {
+            return (index / COLUMNS) * AVATAR_SIZE;
+        }
+    }
+}
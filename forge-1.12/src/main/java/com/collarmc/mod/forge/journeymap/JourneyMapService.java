@@ -7,24 +7,20 @@ import com.collarmc.client.api.location.events.WaypointCreatedEvent;
 import com.collarmc.client.api.location.events.WaypointRemovedEvent;
 import com.collarmc.client.events.CollarStateChangedEvent;
 import com.collarmc.mod.common.CollarService;
-import com.collarmc.mod.forge.CollarForgeClient;
 import com.collarmc.mod.forge.Utils;
 import com.collarmc.plastic.Plastic;
+import com.collarmc.plastic.events.client.OnTickEvent;
 import com.collarmc.plastic.player.Player;
 import com.collarmc.pounce.Preference;
 import com.collarmc.pounce.Subscribe;
 import com.mojang.authlib.GameProfile;
 import journeymap.client.api.IClientAPI;
-import journeymap.client.api.display.MarkerOverlay;
-import journeymap.client.api.display.Waypoint;
-import journeymap.client.api.display.WaypointGroup;
 import journeymap.client.api.model.MapImage;
 import journeymap.common.feature.PlayerRadarManager;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.EntityOtherPlayerMP;
-import net.minecraft.util.math.BlockPos;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraft.util.math.MathHelper;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -34,14 +30,19 @@ import java.util.concurrent.ConcurrentMap;
 
 public final class JourneyMapService {
 
-    private static final Logger LOGGER = LogManager.getLogger(JourneyMapService.class);
+    /**
+     * Also show players as markers with their avatar as the icon, turned on with -Dcollar.journeymap.avatarMarkers=true
+     */
+    private static final boolean AVATAR_MARKERS = Boolean.getBoolean("collar.journeymap.avatarMarkers");
 
     private IClientAPI api;
     private final CollarService collarService;
     private final Plastic plastic;
-    private final ConcurrentMap<UUID, MarkerOverlay> playerMarkers = new ConcurrentHashMap<>();
-    private final ConcurrentMap<UUID, Waypoint> waypoints = new ConcurrentHashMap<>();
-    private final ConcurrentMap<UUID, WaypointGroup> groups = new ConcurrentHashMap<>();
+    private final JourneyMapSync sync = new JourneyMapSync();
+    private final AvatarAtlas avatars = new AvatarAtlas();
+    private final ConcurrentMap<UUID, Location> pendingLocations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, RadarEntity> radarEntities = new ConcurrentHashMap<>();
+    private volatile WorldClient radarWorld;
 
     public JourneyMapService(CollarService collarService, Plastic plastic) {
         this.collarService = collarService;
@@ -75,23 +76,10 @@ public final class JourneyMapService {
         if (api == null) {
             return;
         }
-        int dimensionId = Utils.getDimensionId(event.waypoint.location);
-        BlockPos pos = Utils.getBlockPos(event.waypoint.location);
-        Waypoint waypoint = waypoints.compute(event.waypoint.id, (uuid, mapWaypoint) -> {
-            if (mapWaypoint == null) {
-                mapWaypoint = new Waypoint(CollarForgeClient.MODID, event.waypoint.id.toString(), event.waypoint.name, dimensionId, pos);
-            }
-            mapWaypoint.setName(event.waypoint.name);
-            mapWaypoint.setPosition(dimensionId, pos);
-            mapWaypoint.setGroup(findOrCreateWaypointGroup(event));
-            return mapWaypoint;
-        });
-        try {
-            api.show(waypoint);
-        } catch (Exception e) {
-            LOGGER.error("Could not display waypoint " + event.waypoint);
-        }
-        waypoints.put(event.waypoint.id, waypoint);
+        UUID groupId = event.group == null ? plastic.world.currentPlayer().id() : event.group.id;
+        String groupName = event.group == null ? plastic.world.currentPlayer().name() : event.group.name;
+        sync.putGroup(groupId, groupName);
+        sync.putWaypoint(event.waypoint.id, event.waypoint.name, Utils.getDimensionId(event.waypoint.location), Utils.getBlockPos(event.waypoint.location), groupId);
     }
 
     @Subscribe(Preference.POOL)
@@ -99,31 +87,67 @@ public final class JourneyMapService {
         if (api == null) {
             return;
         }
-        Waypoint waypoint = waypoints.remove(event.waypoint.id);
-        if (waypoint != null) {
-            api.remove(waypoint);
-        }
+        sync.removeWaypoint(event.waypoint.id);
     }
 
+    /**
+     * Keeps only the latest location of each player until the next tick
+     */
     @Subscribe(Preference.POOL)
     public void locationUpdated(LocationUpdatedEvent event) {
-        if (api == null) {
+        if (api == null || event.player.minecraftPlayer == null) {
             return;
         }
+        pendingLocations.put(event.player.minecraftPlayer.id, event.location);
+    }
 
-        UUID playerId = event.player.minecraftPlayer.id;
-        Player player = plastic.world.findPlayerById(playerId).orElseThrow(() -> new IllegalStateException("cannot find player " + playerId));
-        PlayerRadarManager.getInstance().addPlayer(createEntityPlayer(player, event.location));
-
-//        if (event.location.equals(Location.UNKNOWN)) {
-//            MarkerOverlay marker = playerMarkers.remove(event.player.id());
-//            if (marker != null) {
-//                api.remove(marker);
-//            }
-//        } else {
-//            displayMarker(event.player, event.location, createMarker());
-////            event.player.avatar(bufferedImage -> displayMarker(event.player, event.location, bufferedImage));
-//        }
+    /**
+     * Shows waypoint and marker changes, and moves the radar entity of every player whose location changed since the
+     * last tick, along with their avatar marker when {@link #AVATAR_MARKERS} is on
+     */
+    @Subscribe(Preference.CALLER)
+    public void onTick(OnTickEvent event) {
+        if (api == null) {
+            return;
+        }
+        sync.flush(api);
+        if (pendingLocations.isEmpty()) {
+            return;
+        }
+        WorldClient world = Minecraft.getMinecraft().world;
+        if (world == null) {
+            pendingLocations.clear();
+            return;
+        }
+        if (world != radarWorld) {
+            // Entities belong to the world they were created in
+            radarEntities.clear();
+            radarWorld = world;
+        }
+        for (UUID playerId : pendingLocations.keySet()) {
+            Location location = pendingLocations.remove(playerId);
+            if (location == null) {
+                continue;
+            }
+            if (location.equals(Location.UNKNOWN)) {
+                radarEntities.remove(playerId);
+                if (AVATAR_MARKERS) {
+                    sync.removeMarker(playerId);
+                }
+                continue;
+            }
+            Player player = plastic.world.findPlayerById(playerId).orElse(null);
+            RadarEntity radarEntity = radarEntities.get(playerId);
+            if (radarEntity == null || (radarEntity.stub && player != null)) {
+                radarEntity = new RadarEntity(createEntityPlayer(world, playerId, player), player == null);
+                radarEntities.put(playerId, radarEntity);
+            }
+            updateEntityPlayer(radarEntity.entity, location);
+            PlayerRadarManager.getInstance().addPlayer(radarEntity.entity);
+            if (AVATAR_MARKERS && player != null) {
+                avatars.icon(player).ifPresent(icon -> displayMarker(player, location, icon));
+            }
+        }
     }
 
     /**
@@ -133,65 +157,63 @@ public final class JourneyMapService {
         Runtime.getRuntime().addShutdownHook(new Thread(this::reset));
     }
 
-    private WaypointGroup findOrCreateWaypointGroup(WaypointCreatedEvent event) {
-        UUID id = event.group == null ? plastic.world.currentPlayer().id() : event.group.id;
-        String name = event.group == null ? plastic.world.currentPlayer().name() : event.group.name;
-        WaypointGroup waypointGroup = groups.compute(id, (uuid, group) -> {
-            if (group == null) {
-                group = new WaypointGroup(CollarForgeClient.MODID, name);
-            }
-            group.setName(name);
-            return group;
-        });
-        try {
-            api.show(waypointGroup);
-        } catch (Exception e) {
-            LOGGER.error("Could not display waypoint group" + name);
-        }
-        return waypointGroup;
+    /**
+     * Forgets the avatars of the markers, as the skins may have changed when resources were reloaded
+     */
+    public void invalidateAvatars() {
+        avatars.invalidateAll();
     }
 
-    private void displayMarker(Player player, Location location, BufferedImage avatar) {
-        BlockPos pos = Utils.getBlockPos(location);
-        MarkerOverlay markerOverlay = playerMarkers.compute(player.id(), (uuid, overlay) -> {
-            if (overlay == null) {
-                MapImage icon = new MapImage(avatar);
-                overlay = new MarkerOverlay(CollarForgeClient.MODID, player.id().toString(), pos, icon);
-            }
-            overlay.setTitle(player.name());
-            overlay.setPoint(pos);
-            overlay.setDimension(Utils.getDimensionId(location));
-            return overlay;
-        });
-        try {
-            api.show(markerOverlay);
-        } catch (Exception e) {
-            LOGGER.error("Could not display marker for player " + player);
-        }
+    private void displayMarker(Player player, Location location, MapImage icon) {
+        sync.putMarker(player.id(), player.name(), Utils.getDimensionId(location), Utils.getBlockPos(location), icon);
     }
 
     public void reset() {
-        if (api != null) {
-            playerMarkers.values().forEach(markerOverlay -> api.remove(markerOverlay));
-            waypoints.values().forEach(markerOverlay -> api.remove(markerOverlay));
-            api.removeAll(CollarForgeClient.MODID);
-        }
-        playerMarkers.clear();
-        waypoints.clear();
+        sync.reset(api);
+        pendingLocations.clear();
+        radarEntities.clear();
     }
 
-    private static EntityOtherPlayerMP createEntityPlayer(Player player, Location location) {
-        EntityOtherPlayerMP entityPlayer = new EntityOtherPlayerMP(Minecraft.getMinecraft().world, new GameProfile(player.id(), player.name()));
-        entityPlayer.setPositionAndRotation(location.x, location.y, location.z, 0, 0);
-        entityPlayer.setEntityId(player.networkId());
-        entityPlayer.dimension = Utils.getDimensionId(location);
-        entityPlayer.setUniqueId(player.id());
-        entityPlayer.chunkCoordX = location.x.intValue() << 4;
-        entityPlayer.chunkCoordY = location.y.intValue() << 4;
-        entityPlayer.chunkCoordZ = location.z.intValue() << 4;
+    /**
+     * @param player in the tab list, or null if the player is not known to this client
+     * @return entity to show on the radar
+     */
+    private static EntityOtherPlayerMP createEntityPlayer(WorldClient world, UUID playerId, Player player) {
+        GameProfile profile = player == null
+                ? new GameProfile(playerId, playerId.toString().substring(0, 8))
+                : new GameProfile(player.id(), player.name());
+        EntityOtherPlayerMP entityPlayer = new EntityOtherPlayerMP(world, profile);
+        // Keep players that are not in this world clear of the ids of real entities
+        entityPlayer.setEntityId(player == null ? -1 - (playerId.hashCode() & Integer.MAX_VALUE) : player.networkId());
+        entityPlayer.setUniqueId(playerId);
         entityPlayer.addedToChunk = true;
         entityPlayer.rotationYawHead = 0; // TODO: pass around player rotation
         entityPlayer.setSneaking(false);
         return entityPlayer;
     }
+
+    private static void updateEntityPlayer(EntityOtherPlayerMP entityPlayer, Location location) {
+        entityPlayer.setPositionAndRotation(location.x, location.y, location.z, 0, 0);
+        entityPlayer.dimension = Utils.getDimensionId(location);
+        entityPlayer.chunkCoordX = MathHelper.floor(location.x) >> 4;
+        entityPlayer.chunkCoordY = MathHelper.floor(location.y) >> 4;
+        entityPlayer.chunkCoordZ = MathHelper.floor(location.z) >> 4;
+    }
+
+    /**
+     * Player entity shown on the radar, reused as the player moves
+     */
+    private static final class RadarEntity {
+        public final EntityOtherPlayerMP entity;
+
+        /**
+         * The player was not known when the entity was created, so it has a placeholder name
+         */
+        public final boolean stub;
+
+        public RadarEntity(EntityOtherPlayerMP entity, boolean stub) {
+            this.entity = entity;
+            this.stub = stub;
+        }
+    }
 }
@@ -0,0 +1,271 @@
+package com.collarmc.mod.forge.journeymap;
+
+import com.collarmc.mod.forge.CollarForgeClient;
+import journeymap.client.api.IClientAPI;
+import journeymap.client.api.display.Displayable;
+import journeymap.client.api.display.MarkerOverlay;
+import journeymap.client.api.display.Waypoint;
+import journeymap.client.api.display.WaypointGroup;
+import journeymap.client.api.model.MapImage;
+import net.minecraft.util.math.BlockPos;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * What Collar wants JourneyMap to show, and what it was last shown.
+ * Waypoints, waypoint groups and markers can be changed from any thread, which only marks them dirty. {@link #flush}
+ * runs on the client thread and shows or removes only the items whose state changed since they were last shown, so
+ * JourneyMap rebuilds its overlays in proportion to what changed.
+ */
+final class JourneyMapSync {
+
+    private static final Logger LOGGER = LogManager.getLogger(JourneyMapSync.class);
+
+    private final ConcurrentMap<UUID, GroupState> groups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, WaypointState> waypoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, MarkerState> markers = new ConcurrentHashMap<>();
+    private final Set<UUID> dirtyGroups = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> dirtyWaypoints = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> dirtyMarkers = ConcurrentHashMap.newKeySet();
+
+    private final Map<UUID, Shown<WaypointGroup, GroupState>> shownGroups = new HashMap<>();
+    private final Map<UUID, Shown<Waypoint, WaypointState>> shownWaypoints = new HashMap<>();
+    private final Map<UUID, Shown<MarkerOverlay, MarkerState>> shownMarkers = new HashMap<>();
+
+    /**
+     * @param id of group
+     * @param name of group
+     */
+    void putGroup(UUID id, String name) {
+        put(groups, dirtyGroups, id, new GroupState(name));
+    }
+
+    /**
+     * @param id of waypoint
+     * @param name of waypoint
+     * @param dimension id
+     * @param pos of waypoint
+     * @param groupId of a group put with {@link #putGroup(UUID, String)}
+     */
+    void putWaypoint(UUID id, String name, int dimension, BlockPos pos, UUID groupId) {
+        put(waypoints, dirtyWaypoints, id, new WaypointState(name, dimension, pos, groupId));
+    }
+
+    void removeWaypoint(UUID id) {
+        waypoints.remove(id);
+        dirtyWaypoints.add(id);
+    }
+
+    /**
+     * @param id of marker
+     * @param title of marker
+     * @param dimension id
+     * @param pos of marker
+     * @param icon of marker, compared by identity
+     */
+    void putMarker(UUID id, String title, int dimension, BlockPos pos, MapImage icon) {
+        put(markers, dirtyMarkers, id, new MarkerState(title, dimension, pos, icon));
+    }
+
+    void removeMarker(UUID id) {
+        markers.remove(id);
+        dirtyMarkers.add(id);
+    }
+
+    /**
+     * Shows everything that changed since the last flush. Must be called on the client thread.
+     * @param api to show items with
+     */
+    synchronized void flush(IClientAPI api) {
+        if (!dirtyGroups.isEmpty()) {
+            for (UUID id : drain(dirtyGroups)) {
+                GroupState state = groups.get(id);
+                if (state != null) {
+                    Shown<WaypointGroup, GroupState> shown = shownGroups.get(id);
+                    if (shown == null || !shown.state.equals(state)) {
+                        WaypointGroup group = shown == null ? new WaypointGroup(CollarForgeClient.MODID, state.name) : shown.displayable;
+                        group.setName(state.name);
+                        shownGroups.put(id, new Shown<>(group, state));
+                        show(api, group);
+                    }
+                }
+            }
+        }
+        if (!dirtyWaypoints.isEmpty()) {
+            for (UUID id : drain(dirtyWaypoints)) {
+                WaypointState state = waypoints.get(id);
+                Shown<Waypoint, WaypointState> shown = shownWaypoints.get(id);
+                if (state == null) {
+                    if (shown != null) {
+                        shownWaypoints.remove(id);
+                        api.remove(shown.displayable);
+                    }
+                } else if (shown == null || !shown.state.equals(state)) {
+                    Waypoint waypoint = shown == null ? new Waypoint(CollarForgeClient.MODID, id.toString(), state.name, state.dimension, state.pos) : shown.displayable;
+                    waypoint.setName(state.name);
+                    waypoint.setPosition(state.dimension, state.pos);
+                    Shown<WaypointGroup, GroupState> group = shownGroups.get(state.groupId);
+                    if (group != null) {
+                        waypoint.setGroup(group.displayable);
+                    }
+                    shownWaypoints.put(id, new Shown<>(waypoint, state));
+                    show(api, waypoint);
+                }
+            }
+        }
+        if (!dirtyMarkers.isEmpty()) {
+            for (UUID id : drain(dirtyMarkers)) {
+                MarkerState state = markers.get(id);
+                Shown<MarkerOverlay, MarkerState> shown = shownMarkers.get(id);
+                if (state == null) {
+                    if (shown != null) {
+                        shownMarkers.remove(id);
+                        api.remove(shown.displayable);
+                    }
+                } else if (shown == null || !shown.state.equals(state)) {
+                    MarkerOverlay marker;
+                    if (shown == null || shown.state.icon != state.icon) {
+                        if (shown != null) {
+                            api.remove(shown.displayable);
+                        }
+                        marker = new MarkerOverlay(CollarForgeClient.MODID, id.toString(), state.pos, state.icon);
+                    } else {
+                        marker = shown.displayable;
+                    }
+                    marker.setTitle(state.title);
+                    marker.setPoint(state.pos);
+                    marker.setDimension(state.dimension);
+                    shownMarkers.put(id, new Shown<>(marker, state));
+                    show(api, marker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes everything Collar showed with a single call and forgets it
+     * @param api to remove items from, or null if there is none
+     */
+    synchronized void reset(IClientAPI api) {
+        if (api != null) {
+            api.removeAll(CollarForgeClient.MODID);
+        }
+        groups.clear();
+        waypoints.clear();
+        markers.clear();
+        dirtyGroups.clear();
+        dirtyWaypoints.clear();
+        dirtyMarkers.clear();
+        shownGroups.clear();
+        shownWaypoints.clear();
+        shownMarkers.clear();
+    }
+
+    private static <S> void put(ConcurrentMap<UUID, S> states, Set<UUID> dirty, UUID id, S state) {
+        if (!state.equals(states.put(id, state))) {
+            dirty.add(id);
+        }
+    }
+
+    private static List<UUID> drain(Set<UUID> dirty) {
+        List<UUID> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        return ids;
+    }
+
+    private static void show(IClientAPI api, Displayable displayable) {
+        try {
+            api.show(displayable);
+        } catch (Exception e) {
+            LOGGER.error("Could not display " + displayable, e);
+        }
+    }
+
+    private static final class Shown<D extends Displayable, S> {
+        public final D displayable;
+        public final S state;
+
+        public Shown(D displayable, S state) {
+            this.displayable = displayable;
+            this.state = state;
+        }
+    }
+
+    private static final class GroupState {
+        public final String name;
+
+        public GroupState(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return name.equals(((GroupState) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static final class WaypointState {
+        public final String name;
+        public final int dimension;
+        public final BlockPos pos;
+        public final UUID groupId;
+
+        public WaypointState(String name, int dimension, BlockPos pos, UUID groupId) {
+            this.name = name;
+            this.dimension = dimension;
+            this.pos = pos;
+            this.groupId = groupId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            WaypointState that = (WaypointState) o;
+            return dimension == that.dimension && name.equals(that.name) && pos.equals(that.pos) && groupId.equals(that.groupId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, dimension, pos, groupId);
+        }
+    }
+
+    private static final class MarkerState {
+        public final String title;
+        public final int dimension;
+        public final BlockPos pos;
+        public final MapImage icon;
+
+        public MarkerState(String title, int dimension, BlockPos pos, MapImage icon) {
+            this.title = title;
+            this.dimension = dimension;
+            this.pos = pos;
+            this.icon = icon;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MarkerState that = (MarkerState) o;
+            return dimension == that.dimension && title.equals(that.title) && pos.equals(that.pos) && icon == that.icon;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(title, dimension, pos, System.identityHashCode(icon));
+        }
+    }
+}
@@ -23,6 +23,7 @@
  */
 package com.collarmc.plastic.forge;
 
+import com.collarmc.mod.common.commands.CommandCache;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.Suggestion;
@@ -36,40 +37,54 @@ import com.collarmc.plastic.brigadier.CommandTargetNotFoundException;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("NullableProblems")
 public final class ForgeCommand<T> extends CommandBase {
+	/**
+	 * Longest the client thread waits for suggestions on a tab press
+	 */
+	private static final long SUGGESTION_TIMEOUT_MILLIS = 50;
+
 	private final String name;
 	private final T source;
 
 	protected final CommandDispatcher<T> commandDispatcher;
+	private final CommandCache<T> commandCache;
+	private final String usage;
 
 	@Override
 	public String getName() {
 		return name;
 	}
 
-	public ForgeCommand(String name, T source, CommandDispatcher<T> dispatcher) {
+	public ForgeCommand(String name, T source, CommandDispatcher<T> dispatcher, CommandCache<T> commandCache) {
 		this.name = name;
 		this.source = source;
 		this.commandDispatcher = dispatcher;
+		this.commandCache = commandCache;
+		StringBuilder builder = new StringBuilder();
+		builder.append("Usages:");
+		for (String s : commandCache.allUsage()) {
+			builder.append("\n").append("/").append(name).append(" ").append(s);
+		}
+		this.usage = builder.toString();
 	}
 
 	@Override
 	public final String getUsage( ICommandSender sender) {
-		StringBuilder builder = new StringBuilder();
-		builder.append("Usages:");
-		for (String s : commandDispatcher.getAllUsage(commandDispatcher.getRoot(), source, true)) {
-			builder.append("\n").append("/").append(getName()).append(" ").append(s);
-		}
-		return builder.toString();
+		return usage;
 	}
 
 	@Override
 	public final void execute( MinecraftServer server, ICommandSender sender, String[] args) {
 		try {
-			int result = this.commandDispatcher.execute(getCommandString(args), source);
+			int result = this.commandDispatcher.execute(commandCache.parse(getCommandString(args), source));
 			if (result <= 0) {
 				sender.sendMessage(new TextComponentString(getUsage(sender)));
 			}
@@ -86,7 +101,18 @@ public final class ForgeCommand<T> extends CommandBase {
 	@Override
 	public final List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, BlockPos targetPos) {
 		String commandString = getCommandString(args);
-		Suggestions suggestions = this.commandDispatcher.getCompletionSuggestions(this.commandDispatcher.parse(commandString, source)).join();
+		CompletableFuture<Suggestions> future = this.commandDispatcher.getCompletionSuggestions(commandCache.parse(commandString, source));
+		// 1.12 asks for completions once per tab press and has no way to be told about them later, so wait for the
+		// worker, but only briefly so a slow suggestion cannot stall the client thread
+		Suggestions suggestions;
+		try {
+			suggestions = future.get(SUGGESTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Collections.emptyList();
+		} catch (ExecutionException | TimeoutException | CancellationException e) {
+			return Collections.emptyList();
+		}
 		return suggestions.getList().stream().map(Suggestion::getText).collect(Collectors.toList());
 	}
 
@@ -3,9 +3,11 @@ package com.collarmc.plastic.forge;
 import com.collarmc.api.location.Dimension;
 import com.collarmc.api.location.Location;
 import com.collarmc.plastic.player.Player;
+import com.collarmc.plastic.ui.AvatarCache;
 import com.collarmc.plastic.ui.TextBuilder;
 import com.collarmc.plastic.ui.TextureProvider;
 import com.collarmc.plastic.ui.TextureType;
+import com.collarmc.plastic.world.MutableLocation;
 import com.mojang.authlib.minecraft.MinecraftProfileTexture;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.AbstractClientPlayer;
@@ -16,8 +18,9 @@ import net.minecraft.client.renderer.texture.TextureUtil;
 import net.minecraft.client.resources.IResource;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.DimensionType;
+import net.minecraft.world.World;
 import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -25,24 +28,27 @@ import scala.tools.cmd.Opt;
 
 import javax.annotation.Nullable;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 public class ForgePlayer implements Player {
 
     private static final Logger LOGGER = LogManager.getLogger(ForgePlayer.class);
+    private static final AvatarCache<ResourceLocation> AVATARS = new AvatarCache<>();
 
     public final UUID id;
     @Nullable
-    public final EntityPlayer entityPlayer;
+    private volatile EntityPlayer entityPlayer;
     public final NetworkPlayerInfo networkPlayer;
     private final TextureProvider textureProvider;
     private final Minecraft minecraft = Minecraft.getMinecraft();
+    private volatile Location location;
+    private volatile WorldDimension worldDimension;
 
     public ForgePlayer(@Nullable EntityPlayer entityPlayer, NetworkPlayerInfo networkPlayer, TextureProvider textureProvider) {
         this.id = networkPlayer.getGameProfile().getId();
@@ -51,6 +57,18 @@ public class ForgePlayer implements Player {
         this.textureProvider = textureProvider;
     }
 
+    /**
+     * @return the player entity, or null when the player is not in render distance
+     */
+    @Nullable
+    public EntityPlayer entityPlayer() {
+        return entityPlayer;
+    }
+
+    void setEntityPlayer(@Nullable EntityPlayer entityPlayer) {
+        this.entityPlayer = entityPlayer;
+    }
+
     @Override
     public UUID id() {
         return networkPlayer.getGameProfile().getId();
@@ -58,6 +76,7 @@ public class ForgePlayer implements Player {
 
     @Override
     public int networkId() {
+        EntityPlayer entityPlayer = this.entityPlayer;
         return entityPlayer == null ? -1 : entityPlayer.getEntityId();
     }
 
@@ -68,30 +87,69 @@ public class ForgePlayer implements Player {
 
     @Override
     public float yaw() {
+        EntityPlayer entityPlayer = this.entityPlayer;
         return entityPlayer == null ? -1 : entityPlayer.cameraYaw;
     }
 
     @Override
     public Location location() {
+        EntityPlayer entityPlayer = this.entityPlayer;
         if (entityPlayer == null) {
             return Location.UNKNOWN;
         }
-        Dimension dimension;
-        switch (DimensionType.getById(entityPlayer.dimension)) {
+        // posX/Y/Z are read directly as getPosition() allocates a BlockPos. It rounds Y up from half a block, so standing
+        // on slabs and farmland reports the block above
+        int x = MathHelper.floor(entityPlayer.posX);
+        int y = MathHelper.floor(entityPlayer.posY + 0.5D);
+        int z = MathHelper.floor(entityPlayer.posZ);
+        Dimension dimension = dimension(entityPlayer);
+        Location location = this.location;
+        // Only allocate a new location once the player has moved to another block
+        if (location == null
+                || location.dimension != dimension
+                || location.x.intValue() != x
+                || location.y.intValue() != y
+                || location.z.intValue() != z) {
+            location = new Location((double)x, (double)y, (double)z, dimension);
+            this.location = location;
+        }
+        return location;
+    }
+
+    @Override
+    public void sampleLocation(MutableLocation location) {
+        EntityPlayer entityPlayer = this.entityPlayer;
+        if (entityPlayer == null) {
+            location.set(Location.UNKNOWN);
+            return;
+        }
+        location.set(MathHelper.floor(entityPlayer.posX), MathHelper.floor(entityPlayer.posY + 0.5D), MathHelper.floor(entityPlayer.posZ), dimension(entityPlayer));
+    }
+
+    /**
+     * The dimension is resolved once per world instance, as the client creates a new world on dimension change
+     */
+    private Dimension dimension(EntityPlayer entityPlayer) {
+        World world = entityPlayer.world;
+        WorldDimension worldDimension = this.worldDimension;
+        if (worldDimension == null || worldDimension.world != world) {
+            worldDimension = new WorldDimension(world, dimensionOf(world.provider.getDimensionType()));
+            this.worldDimension = worldDimension;
+        }
+        return worldDimension.dimension;
+    }
+
+    private static Dimension dimensionOf(DimensionType dimensionType) {
+        switch (dimensionType) {
             case NETHER:
-                dimension = Dimension.NETHER;
-                break;
+                return Dimension.NETHER;
             case OVERWORLD:
-                dimension = Dimension.OVERWORLD;
-                break;
+                return Dimension.OVERWORLD;
             case THE_END:
-                dimension = Dimension.END;
-                break;
+                return Dimension.END;
             default:
-                dimension = Dimension.UNKNOWN;
+                return Dimension.UNKNOWN;
         }
-        BlockPos pos = entityPlayer.getPosition();
-        return new Location((double)pos.getX(), (double)pos.getY(), (double)pos.getZ(), dimension);
     }
 
     @Override
@@ -102,7 +160,20 @@ public class ForgePlayer implements Player {
 //                LOGGER.error("Avatar for " + this + " is missing");
 //            }
 //        });
-        consumer.accept(defaultAvatar());
+        defaultAvatar().whenComplete((avatar, e) -> {
+            if (e != null) {
+                LOGGER.error("Avatar for " + this + " is missing", e);
+            } else {
+                consumer.accept(avatar);
+            }
+        });
+    }
+
+    /**
+     * Forgets the default avatars cut out of skins, as the skins may have changed when resources were reloaded
+     */
+    public static void invalidateAvatars() {
+        AVATARS.invalidateAll();
     }
 
     @Override
@@ -126,19 +197,16 @@ public class ForgePlayer implements Player {
 //        }
     }
 
-    private BufferedImage defaultAvatar() {
+    private CompletableFuture<BufferedImage> defaultAvatar() {
         EntityPlayer entity = entityPlayer == null ? minecraft.world.getPlayerEntityByUUID(id) : entityPlayer;
         EntityOtherPlayerMP playerMP = (EntityOtherPlayerMP) entity;
         ResourceLocation locationSkin = playerMP.getLocationSkin();
-        try {
-            IResource resource = minecraft.getResourceManager().getResource(locationSkin);
-            try (InputStream stream = resource.getInputStream()) {
-                BufferedImage bufferedImage = TextureUtil.readBufferedImage(stream);
-                return bufferedImage.getSubimage(8, 8, 15, 15);
+        return AVATARS.get(locationSkin, () -> {
+            try (IResource resource = minecraft.getResourceManager().getResource(locationSkin);
+                 InputStream stream = resource.getInputStream()) {
+                return TextureUtil.readBufferedImage(stream);
             }
-        } catch (IOException e) {
-            throw new IllegalStateException("could not find player avatar");
-        }
+        });
     }
 
     @Override
@@ -158,4 +226,14 @@ public class ForgePlayer implements Player {
     public String toString() {
         return id + " " + name();
     }
+
+    private static final class WorldDimension {
+        public final World world;
+        public final Dimension dimension;
+
+        public WorldDimension(World world, Dimension dimension) {
+            this.world = world;
+            this.dimension = dimension;
+        }
+    }
 }
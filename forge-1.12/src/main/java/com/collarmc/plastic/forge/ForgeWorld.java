@@ -3,44 +3,91 @@ package com.collarmc.plastic.forge;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.client.network.NetHandlerPlayClient;
+import net.minecraft.client.network.NetworkPlayerInfo;
 import net.minecraft.entity.player.EntityPlayer;
 import com.collarmc.plastic.chat.ChatService;
+import com.collarmc.plastic.events.client.OnTickEvent;
 import com.collarmc.plastic.player.Player;
 import com.collarmc.plastic.ui.TextureProvider;
 import com.collarmc.plastic.world.World;
 import com.collarmc.pounce.EventBus;
+import com.collarmc.pounce.Preference;
+import com.collarmc.pounce.Subscribe;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 public class ForgeWorld extends World {
 
     public ForgeWorld(TextureProvider textureProvider, ChatService chatService, EventBus eventBus) {
         super(textureProvider, chatService, eventBus);
+        eventBus.subscribe(this);
     }
 
     @Override
     public Player currentPlayer() {
-        return findPlayerById(Minecraft.getMinecraft().player.getGameProfile().getId()).orElseThrow(() -> new IllegalStateException("could not find own player"));
+        UUID id = Minecraft.getMinecraft().player.getGameProfile().getId();
+        if (!players.contains(id)) {
+            refreshPlayers();
+        }
+        return findPlayerById(id).orElseThrow(() -> new IllegalStateException("could not find own player"));
     }
 
     @Override
-    public List<Player> allPlayers() {
+    public boolean hasCurrentPlayer() {
+        return Minecraft.getMinecraft().player != null;
+    }
+
+    /**
+     * Attaches the entity of a player who is already in the tab list
+     * @param entityPlayer that joined the client world
+     */
+    public void onPlayerEntityJoined(EntityPlayer entityPlayer) {
+        findPlayerById(entityPlayer.getGameProfile().getId()).ifPresent(player -> {
+            ((ForgePlayer) player).setEntityPlayer(entityPlayer);
+            players.add(player);
+        });
+    }
+
+    /**
+     * Forge 1.12 has no tab list events, so the registry is reconciled with the tab list every tick.
+     * Nothing is allocated unless a player was added or removed.
+     */
+    @Subscribe(Preference.CALLER)
+    public void onTick(OnTickEvent event) {
+        refreshPlayers();
+    }
+
+    private void refreshPlayers() {
         WorldClient world = Minecraft.getMinecraft().world;
-        if (world == null) {
-            return new ArrayList<>();
-        }
         NetHandlerPlayClient connection = Minecraft.getMinecraft().getConnection();
-        if (connection == null) {
-            return new ArrayList<>();
+        if (world == null || connection == null) {
+            return;
+        }
+        Collection<NetworkPlayerInfo> playerInfos = connection.getPlayerInfoMap();
+        for (NetworkPlayerInfo networkPlayer : playerInfos) {
+            UUID id = networkPlayer.getGameProfile().getId();
+            if (!players.contains(id)) {
+                players.add(new ForgePlayer(world.getPlayerEntityByUUID(id), networkPlayer, textureProvider));
+            }
+        }
+        // Every tab list entry is registered now, so any size difference means someone left
+        if (players.all().size() != playerInfos.size()) {
+            Set<UUID> listed = new HashSet<>();
+            playerInfos.forEach(networkPlayer -> listed.add(networkPlayer.getGameProfile().getId()));
+            players.all().stream()
+                    .filter(player -> !listed.contains(player.id()))
+                    .forEach(player -> players.remove(player.id()));
+        }
+        for (Player player : players.all()) {
+            ForgePlayer forgePlayer = (ForgePlayer) player;
+            EntityPlayer entityPlayer = forgePlayer.entityPlayer();
+            if (entityPlayer != null && (entityPlayer.isDead || entityPlayer.world != world)) {
+                forgePlayer.setEntityPlayer(null);
+                players.add(forgePlayer);
+            }
         }
-        return connection.getPlayerInfoMap()
-                .stream()
-                .map(networkPlayer -> {
-                    EntityPlayer entityPlayer = world.getPlayerEntityByUUID(networkPlayer.getGameProfile().getId());
-                    return new ForgePlayer(entityPlayer, networkPlayer, textureProvider);
-                })
-                .collect(Collectors.toList());
     }
 }
@@ -88,6 +88,7 @@ public abstract class Plastic {
      * Fires {@link ClientDisconnectedEvent}
      */
     public final void onClientDisconnected() {
+        world.onDisconnected();
         eventBus.dispatch(new ClientDisconnectedEvent());
     }
 
@@ -0,0 +1,140 @@
+package com.collarmc.plastic.player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the players known to the client.
+ * The platform keeps it up to date as players join and leave, so lookups never have to scan the world
+ * and the same {@link Player} wrapper is handed out until the player leaves.
+ */
+public final class PlayerRegistry {
+
+    private final ConcurrentMap<UUID, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Player> byNetworkId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Player> byName = new ConcurrentHashMap<>();
+    private volatile List<Player> players = Collections.emptyList();
+
+    /**
+     * Adds or replaces a player. Also used to re-index a player whose network id or name has changed.
+     * @param player to add
+     */
+    public synchronized void add(Player player) {
+        Entry entry = new Entry(player);
+        Entry previous = byId.put(player.id(), entry);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(entry);
+        publish();
+    }
+
+    /**
+     * @param id of player to remove
+     * @return the removed player
+     */
+    public synchronized Optional<Player> remove(UUID id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        unindex(entry);
+        publish();
+        return Optional.of(entry.player);
+    }
+
+    /**
+     * @param networkId of player to remove
+     * @return the removed player
+     */
+    public synchronized Optional<Player> removeByNetworkId(int networkId) {
+        Player player = byNetworkId.get(networkId);
+        return player == null ? Optional.empty() : remove(player.id());
+    }
+
+    /**
+     * Removes all players
+     */
+    public synchronized void clear() {
+        byId.clear();
+        byNetworkId.clear();
+        byName.clear();
+        players = Collections.emptyList();
+    }
+
+    /**
+     * @param id of player
+     * @return player
+     */
+    public Optional<Player> findById(UUID id) {
+        Entry entry = byId.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.player);
+    }
+
+    /**
+     * @param networkId of player
+     * @return player
+     */
+    public Optional<Player> findByNetworkId(int networkId) {
+        return Optional.ofNullable(byNetworkId.get(networkId));
+    }
+
+    /**
+     * @param name of player, case insensitive
+     * @return player
+     */
+    public Optional<Player> findByName(String name) {
+        return Optional.ofNullable(byName.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * @param id of player
+     * @return if the player is registered
+     */
+    public boolean contains(UUID id) {
+        return byId.containsKey(id);
+    }
+
+    /**
+     * @return immutable snapshot of all players, shared between callers until the registry changes
+     */
+    public List<Player> all() {
+        return players;
+    }
+
+    private void index(Entry entry) {
+        if (entry.networkId >= 0) {
+            byNetworkId.put(entry.networkId, entry.player);
+        }
+        byName.put(entry.name, entry.player);
+    }
+
+    private void unindex(Entry entry) {
+        if (entry.networkId >= 0) {
+            byNetworkId.remove(entry.networkId, entry.player);
+        }
+        byName.remove(entry.name, entry.player);
+    }
+
+    private void publish() {
+        List<Player> snapshot = new ArrayList<>(byId.size());
+        byId.values().forEach(entry -> snapshot.add(entry.player));
+        players = Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * Remembers the keys a player was indexed under, as the player may report different ones later
+     */
+    private static final class Entry {
+        public final Player player;
+        public final int networkId;
+        public final String name;
+
+        public Entry(Player player) {
+            this.player = player;
+            this.networkId = player.networkId();
+            this.name = player.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
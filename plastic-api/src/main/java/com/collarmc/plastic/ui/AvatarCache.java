@@ -0,0 +1,154 @@
+package com.collarmc.plastic.ui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.*;
+
+/**
+ * Default player avatars, cut out of player skins.
+ * Each skin is decoded once, off the calling thread, and only its face with the hat layer drawn over it is kept as
+ * {@link #SIZE} x {@link #SIZE} ARGB pixels. Skins that could not be loaded are remembered as failed until the cache is
+ * invalidated, which should be done whenever resources are reloaded.
+ * @param <K> key of the skin texture
+ */
+public final class AvatarCache<K> {
+
+    /**
+     * Width and height of an avatar
+     */
+    public static final int SIZE = 8;
+
+    private static final int MAX_AVATARS = 512;
+    private static final int FACE_X = 8;
+    private static final int HAT_X = 40;
+    private static final int Y = 8;
+
+    private final ConcurrentMap<K, CompletableFuture<int[]>> avatars = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * @param executor to decode skins on
+     */
+    public AvatarCache(Executor executor) {
+        this.executor = executor;
+    }
+
+    public AvatarCache() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param skin key of the skin texture
+     * @param loader to decode the skin with when it is not cached
+     * @return new image of the avatar, completed exceptionally if the skin could not be loaded
+     */
+    public CompletableFuture<BufferedImage> get(K skin, SkinLoader loader) {
+        CompletableFuture<int[]> avatar = avatars.get(skin);
+        if (avatar == null) {
+            if (avatars.size() >= MAX_AVATARS) {
+                evict();
+            }
+            CompletableFuture<int[]> loading = new CompletableFuture<>();
+            avatar = avatars.putIfAbsent(skin, loading);
+            if (avatar == null) {
+                avatar = loading;
+                executor.execute(() -> {
+                    try {
+                        loading.complete(extract(loader.load()));
+                    } catch (Throwable e) {
+                        loading.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+        return avatar.thenApply(AvatarCache::image);
+    }
+
+    /**
+     * Forgets all avatars, such as when resources were reloaded
+     */
+    public void invalidateAll() {
+        avatars.clear();
+    }
+
+    /**
+     * @param skin image of a 64x64 or legacy 64x32 skin
+     * @return face with the hat layer drawn over it
+     * @throws IOException if the skin is not an image or too small
+     */
+    static int[] extract(BufferedImage skin) throws IOException {
+        if (skin == null) {
+            throw new IOException("skin is not an image");
+        }
+        if (skin.getWidth() < HAT_X + SIZE || skin.getHeight() < Y + SIZE) {
+            throw new IOException("skin is " + skin.getWidth() + "x" + skin.getHeight());
+        }
+        int[] face = skin.getRGB(FACE_X, Y, SIZE, SIZE, null, 0, SIZE);
+        int[] hat = skin.getRGB(HAT_X, Y, SIZE, SIZE, null, 0, SIZE);
+        // Legacy skins have no alpha, so Minecraft does not draw a hat layer that has no transparent pixels
+        if (skin.getHeight() == 32 && isOpaque(hat)) {
+            return face;
+        }
+        for (int i = 0; i < face.length; i++) {
+            face[i] = over(hat[i], face[i]);
+        }
+        return face;
+    }
+
+    private void evict() {
+        Iterator<CompletableFuture<int[]>> iterator = avatars.values().iterator();
+        while (iterator.hasNext() && avatars.size() >= MAX_AVATARS / 2) {
+            if (iterator.next().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isOpaque(int[] pixels) {
+        for (int pixel : pixels) {
+            if ((pixel >>> 24) != 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the source pixel composited over the destination pixel
+     */
+    private static int over(int src, int dst) {
+        int srcAlpha = src >>> 24;
+        if (srcAlpha == 0xFF) {
+            return src;
+        } else if (srcAlpha == 0) {
+            return dst;
+        }
+        int dstAlpha = (dst >>> 24) * (0xFF - srcAlpha) / 0xFF;
+        int alpha = srcAlpha + dstAlpha;
+        int result = alpha << 24;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int channel = (((src >> shift) & 0xFF) * srcAlpha + ((dst >> shift) & 0xFF) * dstAlpha) / alpha;
+            result |= channel << shift;
+        }
+        return result;
+    }
+
+    private static BufferedImage image(int[] pixels) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, SIZE, SIZE, pixels, 0, SIZE);
+        return image;
+    }
+
+    /**
+     * Decodes a skin
+     */
+    @FunctionalInterface
+    public interface SkinLoader {
+        /**
+         * @return decoded skin
+         * @throws IOException if the skin could not be read
+         */
+        BufferedImage load() throws IOException;
+    }
+}
@@ -0,0 +1,151 @@
+package com.collarmc.plastic.ui;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which players have had a texture requested, so render code only asks the {@link TextureProvider} once.
+ * A player starts {@link State#UNKNOWN}, is {@link State#PENDING} while the texture is requested and ends either
+ * {@link State#RESOLVED} or {@link State#ABSENT}. Absent textures are requested again after a while, and requests that
+ * failed are retried with exponential backoff.
+ */
+public final class TextureResolver {
+
+    public enum State {
+        /**
+         * Never requested, or due to be requested again
+         */
+        UNKNOWN,
+        /**
+         * Request in flight
+         */
+        PENDING,
+        /**
+         * Texture found
+         */
+        RESOLVED,
+        /**
+         * No texture, or the request failed
+         */
+        ABSENT
+    }
+
+    private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final long absentTtlNanos;
+    private final long minBackoffNanos;
+    private final long maxBackoffNanos;
+
+    /**
+     * @param absentTtl how long to wait before asking again for a texture that does not exist
+     * @param minBackoff wait after the first failure, doubled for every failure after it
+     * @param maxBackoff longest wait after a failure
+     * @param unit of the durations
+     */
+    public TextureResolver(long absentTtl, long minBackoff, long maxBackoff, TimeUnit unit) {
+        if (minBackoff <= 0 || maxBackoff < minBackoff) {
+            throw new IllegalArgumentException("invalid backoff " + minBackoff + " to " + maxBackoff);
+        }
+        this.absentTtlNanos = unit.toNanos(absentTtl);
+        this.minBackoffNanos = unit.toNanos(minBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+    }
+
+    /**
+     * Decides if the caller should request the players texture now. Costs a single map lookup when nothing is due.
+     * @param id of player
+     * @return {@link State#UNKNOWN} if the caller must request the texture and report back with {@link #resolved(UUID)},
+     * {@link #absent(UUID)} or {@link #failed(UUID)}, otherwise the current state
+     */
+    public State begin(UUID id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return entries.putIfAbsent(id, Entry.PENDING) == null ? State.UNKNOWN : State.PENDING;
+        }
+        if (entry.state == State.ABSENT && System.nanoTime() - entry.retryAt >= 0) {
+            return entries.replace(id, entry, entry.pending()) ? State.UNKNOWN : State.PENDING;
+        }
+        return entry.state;
+    }
+
+    /**
+     * @param id of player
+     * @return state of the players texture
+     */
+    public State state(UUID id) {
+        Entry entry = entries.get(id);
+        return entry == null ? State.UNKNOWN : entry.state;
+    }
+
+    /**
+     * The players texture was found
+     * @param id of player
+     */
+    public void resolved(UUID id) {
+        complete(id, new Entry(State.RESOLVED, 0, 0));
+    }
+
+    /**
+     * The player has no texture
+     * @param id of player
+     */
+    public void absent(UUID id) {
+        complete(id, new Entry(State.ABSENT, System.nanoTime() + absentTtlNanos, 0));
+    }
+
+    /**
+     * The request for the players texture failed
+     * @param id of player
+     */
+    public void failed(UUID id) {
+        Entry entry = entries.get(id);
+        int failures = entry == null ? 1 : entry.failures + 1;
+        // Cap the shift so the backoff cannot overflow
+        long backoff = Math.min(maxBackoffNanos, minBackoffNanos << Math.min(failures - 1, 20));
+        complete(id, new Entry(State.ABSENT, System.nanoTime() + backoff, failures));
+    }
+
+    /**
+     * Forget a player so their texture is requested again
+     * @param id of player
+     */
+    public void invalidate(UUID id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Forget every player, e.g. when the textures available may have changed
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Only completes requests that are still pending, so a request that outlived {@link #clear()} is ignored
+     */
+    private void complete(UUID id, Entry completed) {
+        entries.computeIfPresent(id, (key, entry) -> entry.state == State.PENDING ? completed : entry);
+    }
+
+    private static final class Entry {
+        private static final Entry PENDING = new Entry(State.PENDING, 0, 0);
+
+        public final State state;
+        public final long retryAt;
+        public final int failures;
+
+        public Entry(State state, long retryAt, int failures) {
+            this.state = state;
+            this.retryAt = retryAt;
+            this.failures = failures;
+        }
+
+        /**
+         * @return pending entry that remembers previous failures
+         */
+        public Entry pending() {
+            return failures == 0 ? PENDING : new Entry(State.PENDING, 0, failures);
+        }
+    }
+}
@@ -16,4 +16,12 @@ public interface Entity {
      * @return current position
      */
     Location location();
+
+    /**
+     * Writes the current block position into the holder. Implementations should not allocate.
+     * @param location holder to write into
+     */
+    default void sampleLocation(MutableLocation location) {
+        location.set(location());
+    }
 }
@@ -0,0 +1,46 @@
+package com.collarmc.plastic.world;
+
+import com.collarmc.api.location.Dimension;
+import com.collarmc.api.location.Location;
+
+/**
+ * Reusable block position holder, so locations can be sampled every tick without allocating
+ */
+public final class MutableLocation {
+
+    public int x;
+    public int y;
+    public int z;
+    public Dimension dimension = Dimension.UNKNOWN;
+
+    public MutableLocation set(int x, int y, int z, Dimension dimension) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.dimension = dimension;
+        return this;
+    }
+
+    public MutableLocation set(Location location) {
+        return set(location.x.intValue(), location.y.intValue(), location.z.intValue(), location.dimension);
+    }
+
+    /**
+     * @param location to compare
+     * @return if both are in the same block of the same dimension
+     */
+    public boolean isSameBlock(Location location) {
+        return location != null
+                && dimension == location.dimension
+                && x == location.x.intValue()
+                && y == location.y.intValue()
+                && z == location.z.intValue();
+    }
+
+    /**
+     * @return immutable copy
+     */
+    public Location toLocation() {
+        return new Location((double) x, (double) y, (double) z, dimension);
+    }
+}
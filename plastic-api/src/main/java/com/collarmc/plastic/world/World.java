@@ -3,18 +3,27 @@ package com.collarmc.plastic.world;
 import com.collarmc.plastic.chat.ChatService;
 import com.collarmc.plastic.events.world.WorldLoadedEvent;
 import com.collarmc.plastic.player.Player;
+import com.collarmc.plastic.player.PlayerRegistry;
 import com.collarmc.plastic.ui.TextureProvider;
+import com.collarmc.plastic.ui.TextureResolver;
 import com.collarmc.pounce.EventBus;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public abstract class World {
 
     public final ChatService chatService;
     protected TextureProvider textureProvider;
     protected final EventBus eventBus;
+    protected final PlayerRegistry players = new PlayerRegistry();
+
+    /**
+     * Tracks which players capes have been requested
+     */
+    public final TextureResolver capes = new TextureResolver(300, 5, 300, TimeUnit.SECONDS);
 
     public World(TextureProvider textureProvider, ChatService chatService, EventBus eventBus) {
         this.textureProvider = textureProvider;
@@ -22,15 +31,29 @@ public abstract class World {
         this.eventBus = eventBus;
     }
 
+    /**
+     * @return provider of player textures
+     */
+    public TextureProvider textureProvider() {
+        return textureProvider;
+    }
+
     /**
      * @return the current player
      */
     public abstract Player currentPlayer();
 
+    /**
+     * @return if the current player is in the world, e.g. {@link #currentPlayer()} can be called
+     */
+    public abstract boolean hasCurrentPlayer();
+
     /**
      * @return all players on the server
      */
-    public abstract List<Player> allPlayers();
+    public List<Player> allPlayers() {
+        return players.all();
+    }
 
     /**
      * Find player by their ID
@@ -38,16 +61,44 @@ public abstract class World {
      * @return player
      */
     public Optional<Player> findPlayerById(UUID id) {
-        return allPlayers().stream().filter(candidate -> candidate.id().equals(id)).findFirst();
+        return players.findById(id);
+    }
+
+    /**
+     * Find player by their entity network ID
+     * @param networkId of player
+     * @return player
+     */
+    public Optional<Player> findPlayerByNetworkId(int networkId) {
+        return players.findByNetworkId(networkId);
+    }
+
+    /**
+     * Find player by their name, ignoring case
+     * @param name of player
+     * @return player
+     */
+    public Optional<Player> findPlayerByName(String name) {
+        return players.findByName(name);
     }
 
     /**
      * Fires the {@link WorldLoadedEvent}
      */
     public final void onWorldLoaded() {
+        players.clear();
+        capes.clear();
         eventBus.dispatch(new WorldLoadedEvent());
     }
 
+    /**
+     * Forgets every known player and their capes when the client leaves the server
+     */
+    public final void onDisconnected() {
+        players.clear();
+        capes.clear();
+    }
+
     /**
      * Calls {@link Player#onRender()}
      * @param id player id